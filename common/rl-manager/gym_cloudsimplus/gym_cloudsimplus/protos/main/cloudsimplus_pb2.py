@@ -2,7 +2,7 @@
 # Generated by the protocol buffer compiler.  DO NOT EDIT!
 # NO CHECKED-IN PROTOBUF GENCODE
 # source: cloudsimplus.proto
-# Protobuf Python Version: 6.31.1
+# Protobuf Python Version: 7.34.1
 """Generated protocol buffer code."""
 from google.protobuf import descriptor as _descriptor
 from google.protobuf import descriptor_pool as _descriptor_pool
@@ -11,8 +11,8 @@ from google.protobuf import symbol_database as _symbol_database
 from google.protobuf.internal import builder as _builder
 _runtime_version.ValidateProtobufRuntimeVersion(
     _runtime_version.Domain.PUBLIC,
-    6,
-    31,
+    7,
+    34,
     1,
     '',
     'cloudsimplus.proto'
@@ -24,7 +24,7 @@ _sym_db = _symbol_database.Default()
 
 
 
-DESCRIPTOR = _descriptor_pool.Default().AddSerializedFile(b'\n\x12\x63loudsimplus.proto\x12\x0c\x64\x61islab.cspg\"X\n\x0bObservation\x12\"\n\x1ainfrastructure_observation\x18\x01 \x03(\x05\x12%\n\x1djob_cores_waiting_observation\x18\x02 \x01(\x05\"\x99\x02\n\x08StepInfo\x12\x17\n\x0fjob_wait_reward\x18\x01 \x01(\x01\x12\x1f\n\x17running_vm_cores_reward\x18\x02 \x01(\x01\x12\"\n\x1aunutilized_vm_cores_reward\x18\x03 \x01(\x01\x12\x16\n\x0einvalid_reward\x18\x04 \x01(\x01\x12\x10\n\x08is_valid\x18\x05 \x01(\x08\x12\x15\n\rjob_wait_time\x18\x06 \x03(\x01\x12 \n\x18unutilized_vm_core_ratio\x18\x07 \x01(\x01\x12\x1e\n\x16observation_tree_array\x18\x08 \x03(\x05\x12\x15\n\rhost_affected\x18\t \x01(\x05\x12\x15\n\rcores_changed\x18\n \x01(\x05\"\x99\x01\n\nStepResult\x12.\n\x0bobservation\x18\x01 \x01(\x0b\x32\x19.daislab.cspg.Observation\x12\x0e\n\x06reward\x18\x02 \x01(\x01\x12\x12\n\nterminated\x18\x03 \x01(\x08\x12\x11\n\ttruncated\x18\x04 \x01(\x08\x12$\n\x04info\x18\x05 \x01(\x0b\x32\x16.daislab.cspg.StepInfo\"c\n\x0bResetResult\x12.\n\x0bobservation\x18\x01 \x01(\x0b\x32\x19.daislab.cspg.Observation\x12$\n\x04info\x18\x02 \x01(\x0b\x32\x16.daislab.cspg.StepInfo\"7\n\rCreateRequest\x12\x13\n\x0bparams_json\x18\x01 \x01(\t\x12\x11\n\tjobs_json\x18\x02 \x01(\t\" \n\x0e\x43reateResponse\x12\x0e\n\x06sim_id\x18\x01 \x01(\t\",\n\x0cResetRequest\x12\x0e\n\x06sim_id\x18\x01 \x01(\t\x12\x0c\n\x04seed\x18\x02 \x01(\x03\"-\n\x0bStepRequest\x12\x0e\n\x06sim_id\x18\x01 \x01(\t\x12\x0e\n\x06\x61\x63tion\x18\x02 \x03(\x05\"v\n\x10\x42\x61tchStepRequest\x12\x36\n\x05items\x18\x01 \x03(\x0b\x32\'.daislab.cspg.BatchStepRequest.StepItem\x1a*\n\x08StepItem\x12\x0e\n\x06sim_id\x18\x01 \x01(\t\x12\x0e\n\x06\x61\x63tion\x18\x02 \x03(\x05\">\n\x11\x42\x61tchStepResponse\x12)\n\x07results\x18\x01 \x03(\x0b\x32\x18.daislab.cspg.StepResult\"\x1e\n\x0c\x43loseRequest\x12\x0e\n\x06sim_id\x18\x01 \x01(\t\"\x0f\n\rCloseResponse\"\x1f\n\rRenderRequest\x12\x0e\n\x06sim_id\x18\x01 \x01(\t\"*\n\x0eRenderResponse\x12\x18\n\x10render_data_json\x18\x01 \x01(\t\"\r\n\x0bPingRequest\"\x1d\n\x0cPongResponse\x12\r\n\x05\x61live\x18\x01 \x01(\x08\x32\xf1\x03\n\x0f\x43loudSimService\x12M\n\x10\x63reateSimulation\x12\x1b.daislab.cspg.CreateRequest\x1a\x1c.daislab.cspg.CreateResponse\x12>\n\x05reset\x12\x1a.daislab.cspg.ResetRequest\x1a\x19.daislab.cspg.ResetResult\x12;\n\x04step\x12\x19.daislab.cspg.StepRequest\x1a\x18.daislab.cspg.StepResult\x12L\n\tbatchStep\x12\x1e.daislab.cspg.BatchStepRequest\x1a\x1f.daislab.cspg.BatchStepResponse\x12@\n\x05\x63lose\x12\x1a.daislab.cspg.CloseRequest\x1a\x1b.daislab.cspg.CloseResponse\x12\x43\n\x06render\x12\x1b.daislab.cspg.RenderRequest\x1a\x1c.daislab.cspg.RenderResponse\x12=\n\x04ping\x12\x19.daislab.cspg.PingRequest\x1a\x1a.daislab.cspg.PongResponseB$\n\x11\x64\x61islab.cspg.grpcB\rCloudSimProtoP\x01\x62\x06proto3')
+DESCRIPTOR = _descriptor_pool.Default().AddSerializedFile(b'\n\x12\x63loudsimplus.proto\x12\x0c\x64\x61islab.cspg\"\xcd\x01\n\x0bObservation\x12\"\n\x1ainfrastructure_observation\x18\x01 \x03(\x05\x12%\n\x1djob_cores_waiting_observation\x18\x02 \x01(\x05\x12)\n!infrastructure_observation_packed\x18\x03 \x01(\x0c\x12H\n infrastructure_observation_delta\x18\x04 \x01(\x0b\x32\x1e.daislab.cspg.ObservationDelta\"o\n\x10ObservationDelta\x12\x10\n\x08keyframe\x18\x01 \x01(\x08\x12\x0e\n\x06length\x18\x02 \x01(\x05\x12\x13\n\x0brange_start\x18\x03 \x03(\x05\x12\x14\n\x0crange_length\x18\x04 \x03(\x05\x12\x0e\n\x06values\x18\x05 \x03(\x05\"\xc0\x02\n\x08StepInfo\x12\x17\n\x0fjob_wait_reward\x18\x01 \x01(\x01\x12\x1f\n\x17running_vm_cores_reward\x18\x02 \x01(\x01\x12\"\n\x1aunutilized_vm_cores_reward\x18\x03 \x01(\x01\x12\x16\n\x0einvalid_reward\x18\x04 \x01(\x01\x12\x10\n\x08is_valid\x18\x05 \x01(\x08\x12\x15\n\rjob_wait_time\x18\x06 \x03(\x01\x12 \n\x18unutilized_vm_core_ratio\x18\x07 \x01(\x01\x12\x1e\n\x16observation_tree_array\x18\x08 \x03(\x05\x12\x15\n\rhost_affected\x18\t \x01(\x05\x12\x15\n\rcores_changed\x18\n \x01(\x05\x12%\n\x1dobservation_tree_array_packed\x18\x0b \x01(\x0c\"\xe0\x01\n\nStepResult\x12.\n\x0bobservation\x18\x01 \x01(\x0b\x32\x19.daislab.cspg.Observation\x12\x0e\n\x06reward\x18\x02 \x01(\x01\x12\x12\n\nterminated\x18\x03 \x01(\x08\x12\x11\n\ttruncated\x18\x04 \x01(\x08\x12$\n\x04info\x18\x05 \x01(\x0b\x32\x16.daislab.cspg.StepInfo\x12\x34\n\x11reset_observation\x18\x06 \x01(\x0b\x32\x19.daislab.cspg.Observation\x12\x0f\n\x07\x65pisode\x18\x07 \x01(\x05\"t\n\x0bResetResult\x12.\n\x0bobservation\x18\x01 \x01(\x0b\x32\x19.daislab.cspg.Observation\x12$\n\x04info\x18\x02 \x01(\x0b\x32\x16.daislab.cspg.StepInfo\x12\x0f\n\x07\x65pisode\x18\x03 \x01(\x05\"K\n\rCreateRequest\x12\x13\n\x0bparams_json\x18\x01 \x01(\t\x12\x11\n\tjobs_json\x18\x02 \x01(\t\x12\x12\n\ntrace_hash\x18\x03 \x01(\t\")\n\x14RegisterTraceRequest\x12\x11\n\tjobs_json\x18\x01 \x01(\t\">\n\x15RegisterTraceResponse\x12\x12\n\ntrace_hash\x18\x01 \x01(\t\x12\x11\n\tjob_count\x18\x02 \x01(\x05\"P\n\tJobRecord\x12\x0e\n\x06job_id\x18\x01 \x01(\x05\x12\x18\n\x10submission_delay\x18\x02 \x01(\x03\x12\n\n\x02mi\x18\x03 \x01(\x03\x12\r\n\x05\x63ores\x18\x04 \x01(\x05\"J\n\x11UploadJobsRequest\x12\x0e\n\x06sim_id\x18\x01 \x01(\t\x12%\n\x04jobs\x18\x02 \x03(\x0b\x32\x17.daislab.cspg.JobRecord\"\'\n\x12UploadJobsResponse\x12\x11\n\tjob_count\x18\x01 \x01(\x05\"<\n\x0e\x43reateResponse\x12\x0e\n\x06sim_id\x18\x01 \x01(\t\x12\x1a\n\x12shared_memory_path\x18\x02 \x01(\t\"A\n\x0cResetRequest\x12\x0e\n\x06sim_id\x18\x01 \x01(\t\x12\x0c\n\x04seed\x18\x02 \x01(\x03\x12\x13\n\x0binfo_fields\x18\x03 \x03(\t\"n\n\x0bStepRequest\x12\x0e\n\x06sim_id\x18\x01 \x01(\t\x12\x0e\n\x06\x61\x63tion\x18\x02 \x03(\x05\x12\x16\n\x0e\x66orce_keyframe\x18\x03 \x01(\x08\x12\x13\n\x0binfo_fields\x18\x04 \x03(\t\x12\x12\n\nauto_reset\x18\x05 \x01(\x08\"\xb7\x01\n\x10\x42\x61tchStepRequest\x12\x36\n\x05items\x18\x01 \x03(\x0b\x32\'.daislab.cspg.BatchStepRequest.StepItem\x12\x13\n\x0binfo_fields\x18\x02 \x03(\t\x12\x12\n\nauto_reset\x18\x03 \x01(\x08\x1a\x42\n\x08StepItem\x12\x0e\n\x06sim_id\x18\x01 \x01(\t\x12\x0e\n\x06\x61\x63tion\x18\x02 \x03(\x05\x12\x16\n\x0e\x66orce_keyframe\x18\x03 \x01(\x08\">\n\x11\x42\x61tchStepResponse\x12)\n\x07results\x18\x01 \x03(\x0b\x32\x18.daislab.cspg.StepResult\"\xcf\x04\n\x19\x43olumnarBatchStepResponse\x12\r\n\x05\x63ount\x18\x01 \x01(\x05\x12\x0f\n\x07rewards\x18\x02 \x01(\x0c\x12\x12\n\nterminated\x18\x03 \x01(\x0c\x12\x11\n\ttruncated\x18\x04 \x01(\x0c\x12\x0e\n\x06\x66\x61iled\x18\x05 \x01(\x0c\x12\x14\n\x0cobservations\x18\x06 \x01(\x0c\x12\x1b\n\x13observation_offsets\x18\x07 \x01(\x0c\x12\x19\n\x11job_cores_waiting\x18\x08 \x01(\x0c\x12\x17\n\x0fjob_wait_reward\x18\t \x01(\x0c\x12\x1f\n\x17running_vm_cores_reward\x18\n \x01(\x0c\x12\"\n\x1aunutilized_vm_cores_reward\x18\x0b \x01(\x0c\x12\x16\n\x0einvalid_reward\x18\x0c \x01(\x0c\x12\x10\n\x08is_valid\x18\r \x01(\x0c\x12 \n\x18unutilized_vm_core_ratio\x18\x0e \x01(\x0c\x12\x15\n\rhost_affected\x18\x0f \x01(\x0c\x12\x15\n\rcores_changed\x18\x10 \x01(\x0c\x12\x15\n\rjob_wait_time\x18\x11 \x01(\x0c\x12\x1d\n\x15job_wait_time_offsets\x18\x12 \x01(\x0c\x12\x10\n\x08\x65pisodes\x18\x13 \x01(\x0c\x12\r\n\x05reset\x18\x14 \x01(\x0c\x12\x1a\n\x12reset_observations\x18\x15 \x01(\x0c\x12!\n\x19reset_observation_offsets\x18\x16 \x01(\x0c\x12\x1f\n\x17reset_job_cores_waiting\x18\x17 \x01(\x0c\"t\n\x11StepStreamRequest\x12\x0e\n\x06sim_id\x18\x01 \x01(\t\x12\x0e\n\x06\x61\x63tion\x18\x02 \x03(\x05\x12\x16\n\x0e\x66orce_keyframe\x18\x03 \x01(\x08\x12\x13\n\x0binfo_fields\x18\x04 \x03(\t\x12\x12\n\nauto_reset\x18\x05 \x01(\x08\"E\n\x11RunEpisodeRequest\x12\x0e\n\x06sim_id\x18\x01 \x01(\t\x12\x0c\n\x04seed\x18\x02 \x01(\x03\x12\x12\n\nchunk_size\x18\x03 \x01(\x05\"2\n\x0bRewardChunk\x12\x12\n\nfirst_step\x18\x01 \x01(\x05\x12\x0f\n\x07rewards\x18\x02 \x01(\x0c\"\xfe\x02\n\x0e\x45pisodeSummary\x12\x0f\n\x07\x65pisode\x18\x01 \x01(\x05\x12\r\n\x05steps\x18\x02 \x01(\x05\x12\x12\n\nterminated\x18\x03 \x01(\x08\x12\x11\n\ttruncated\x18\x04 \x01(\x08\x12\x14\n\x0ctotal_reward\x18\x05 \x01(\x01\x12\x1b\n\x13job_wait_reward_sum\x18\x06 \x01(\x01\x12#\n\x1brunning_vm_cores_reward_sum\x18\x07 \x01(\x01\x12&\n\x1eunutilized_vm_cores_reward_sum\x18\x08 \x01(\x01\x12\x1a\n\x12invalid_reward_sum\x18\t \x01(\x01\x12%\n\x1dmean_unutilized_vm_core_ratio\x18\n \x01(\x01\x12\x15\n\rfinished_jobs\x18\x0b \x01(\x05\x12\x1a\n\x12mean_job_wait_time\x18\x0c \x01(\x01\x12\x19\n\x11max_job_wait_time\x18\r \x01(\x01\x12\x14\n\x0cwall_time_ms\x18\x0e \x01(\x01\"~\n\x12RunEpisodeResponse\x12,\n\x07rewards\x18\x01 \x01(\x0b\x32\x19.daislab.cspg.RewardChunkH\x00\x12/\n\x07summary\x18\x02 \x01(\x0b\x32\x1c.daislab.cspg.EpisodeSummaryH\x00\x42\t\n\x07payload\"\x81\x01\n\rReplayRequest\x12\x0e\n\x06sim_id\x18\x01 \x01(\t\x12\x11\n\x07\x61\x63tions\x18\x02 \x01(\x0cH\x00\x12\x16\n\x0c\x61\x63tions_path\x18\x03 \x01(\tH\x00\x12\r\n\x05reset\x18\x04 \x01(\x08\x12\x1c\n\x14include_observations\x18\x05 \x01(\x08\x42\x08\n\x06source\"\xec\x01\n\x0eReplayResponse\x12\r\n\x05steps\x18\x01 \x01(\x05\x12\x12\n\nterminated\x18\x02 \x01(\x08\x12\x11\n\ttruncated\x18\x03 \x01(\x08\x12\x0f\n\x07\x65pisode\x18\x04 \x01(\x05\x12\x0f\n\x07rewards\x18\x05 \x01(\x0c\x12\r\n\x05valid\x18\x06 \x01(\x0c\x12\x19\n\x11job_cores_waiting\x18\x07 \x01(\x0c\x12\x11\n\tvm_counts\x18\x08 \x01(\x0c\x12\x12\n\njob_counts\x18\t \x01(\x0c\x12\x14\n\x0cobservations\x18\n \x01(\x0c\x12\x1b\n\x13observation_offsets\x18\x0b \x01(\x0c\"\x1e\n\x0c\x43loseRequest\x12\x0e\n\x06sim_id\x18\x01 \x01(\t\"\x0f\n\rCloseResponse\"\x1f\n\rRenderRequest\x12\x0e\n\x06sim_id\x18\x01 \x01(\t\"*\n\x0eRenderResponse\x12\x18\n\x10render_data_json\x18\x01 \x01(\t\"\r\n\x0bPingRequest\"\x1d\n\x0cPongResponse\x12\r\n\x05\x61live\x18\x01 \x01(\x08\"%\n\x13MailboxStatsRequest\x12\x0e\n\x06sim_id\x18\x01 \x01(\t\"\x8d\x01\n\x0cMailboxStats\x12\x0e\n\x06sim_id\x18\x01 \x01(\t\x12\r\n\x05\x64\x65pth\x18\x02 \x01(\x05\x12\x11\n\tmax_depth\x18\x03 \x01(\x05\x12\r\n\x05\x63\x61lls\x18\x04 \x01(\x03\x12\x1e\n\x16queue_wait_nanos_total\x18\x05 \x01(\x03\x12\x1c\n\x14queue_wait_nanos_max\x18\x06 \x01(\x03\"G\n\x14MailboxStatsResponse\x12/\n\x0bsimulations\x18\x01 \x03(\x0b\x32\x1a.daislab.cspg.MailboxStats\" \n\x0eMetricsRequest\x12\x0e\n\x06sim_id\x18\x01 \x01(\t\"\xa0\x01\n\x0cPhaseLatency\x12\r\n\x05phase\x18\x01 \x01(\t\x12\r\n\x05\x63ount\x18\x02 \x01(\x03\x12\x12\n\nmean_nanos\x18\x03 \x01(\x01\x12\x11\n\tp50_nanos\x18\x04 \x01(\x03\x12\x11\n\tp90_nanos\x18\x05 \x01(\x03\x12\x11\n\tp99_nanos\x18\x06 \x01(\x03\x12\x12\n\np999_nanos\x18\x07 \x01(\x03\x12\x11\n\tmax_nanos\x18\x08 \x01(\x03\"O\n\x11SimulationLatency\x12\x0e\n\x06sim_id\x18\x01 \x01(\t\x12*\n\x06phases\x18\x02 \x03(\x0b\x32\x1a.daislab.cspg.PhaseLatency\"G\n\x0fMetricsResponse\x12\x34\n\x0bsimulations\x18\x01 \x03(\x0b\x32\x1f.daislab.cspg.SimulationLatency2\x8d\t\n\x0f\x43loudSimService\x12M\n\x10\x63reateSimulation\x12\x1b.daislab.cspg.CreateRequest\x1a\x1c.daislab.cspg.CreateResponse\x12X\n\rregisterTrace\x12\".daislab.cspg.RegisterTraceRequest\x1a#.daislab.cspg.RegisterTraceResponse\x12Q\n\nuploadJobs\x12\x1f.daislab.cspg.UploadJobsRequest\x1a .daislab.cspg.UploadJobsResponse(\x01\x12>\n\x05reset\x12\x1a.daislab.cspg.ResetRequest\x1a\x19.daislab.cspg.ResetResult\x12;\n\x04step\x12\x19.daislab.cspg.StepRequest\x1a\x18.daislab.cspg.StepResult\x12L\n\tbatchStep\x12\x1e.daislab.cspg.BatchStepRequest\x1a\x1f.daislab.cspg.BatchStepResponse\x12\\\n\x11\x62\x61tchStepColumnar\x12\x1e.daislab.cspg.BatchStepRequest\x1a\'.daislab.cspg.ColumnarBatchStepResponse\x12K\n\nstepStream\x12\x1f.daislab.cspg.StepStreamRequest\x1a\x18.daislab.cspg.StepResult(\x01\x30\x01\x12Q\n\nrunEpisode\x12\x1f.daislab.cspg.RunEpisodeRequest\x1a .daislab.cspg.RunEpisodeResponse0\x01\x12J\n\rreplayActions\x12\x1b.daislab.cspg.ReplayRequest\x1a\x1c.daislab.cspg.ReplayResponse\x12@\n\x05\x63lose\x12\x1a.daislab.cspg.CloseRequest\x1a\x1b.daislab.cspg.CloseResponse\x12\x43\n\x06render\x12\x1b.daislab.cspg.RenderRequest\x1a\x1c.daislab.cspg.RenderResponse\x12=\n\x04ping\x12\x19.daislab.cspg.PingRequest\x1a\x1a.daislab.cspg.PongResponse\x12X\n\x0fgetMailboxStats\x12!.daislab.cspg.MailboxStatsRequest\x1a\".daislab.cspg.MailboxStatsResponse\x12I\n\ngetMetrics\x12\x1c.daislab.cspg.MetricsRequest\x1a\x1d.daislab.cspg.MetricsResponseB$\n\x11\x64\x61islab.cspg.grpcB\rCloudSimProtoP\x01\x62\x06proto3')
 
 _globals = globals()
 _builder.BuildMessageAndEnumDescriptors(DESCRIPTOR, _globals)
@@ -32,40 +32,82 @@ _builder.BuildTopDescriptorsAndMessages(DESCRIPTOR, 'cloudsimplus_pb2', _globals
 if not _descriptor._USE_C_DESCRIPTORS:
   _globals['DESCRIPTOR']._loaded_options = None
   _globals['DESCRIPTOR']._serialized_options = b'\n\021daislab.cspg.grpcB\rCloudSimProtoP\001'
-  _globals['_OBSERVATION']._serialized_start=36
-  _globals['_OBSERVATION']._serialized_end=124
-  _globals['_STEPINFO']._serialized_start=127
-  _globals['_STEPINFO']._serialized_end=408
-  _globals['_STEPRESULT']._serialized_start=411
-  _globals['_STEPRESULT']._serialized_end=564
-  _globals['_RESETRESULT']._serialized_start=566
-  _globals['_RESETRESULT']._serialized_end=665
-  _globals['_CREATEREQUEST']._serialized_start=667
-  _globals['_CREATEREQUEST']._serialized_end=722
-  _globals['_CREATERESPONSE']._serialized_start=724
-  _globals['_CREATERESPONSE']._serialized_end=756
-  _globals['_RESETREQUEST']._serialized_start=758
-  _globals['_RESETREQUEST']._serialized_end=802
-  _globals['_STEPREQUEST']._serialized_start=804
-  _globals['_STEPREQUEST']._serialized_end=849
-  _globals['_BATCHSTEPREQUEST']._serialized_start=851
-  _globals['_BATCHSTEPREQUEST']._serialized_end=969
-  _globals['_BATCHSTEPREQUEST_STEPITEM']._serialized_start=927
-  _globals['_BATCHSTEPREQUEST_STEPITEM']._serialized_end=969
-  _globals['_BATCHSTEPRESPONSE']._serialized_start=971
-  _globals['_BATCHSTEPRESPONSE']._serialized_end=1033
-  _globals['_CLOSEREQUEST']._serialized_start=1035
-  _globals['_CLOSEREQUEST']._serialized_end=1065
-  _globals['_CLOSERESPONSE']._serialized_start=1067
-  _globals['_CLOSERESPONSE']._serialized_end=1082
-  _globals['_RENDERREQUEST']._serialized_start=1084
-  _globals['_RENDERREQUEST']._serialized_end=1115
-  _globals['_RENDERRESPONSE']._serialized_start=1117
-  _globals['_RENDERRESPONSE']._serialized_end=1159
-  _globals['_PINGREQUEST']._serialized_start=1161
-  _globals['_PINGREQUEST']._serialized_end=1174
-  _globals['_PONGRESPONSE']._serialized_start=1176
-  _globals['_PONGRESPONSE']._serialized_end=1205
-  _globals['_CLOUDSIMSERVICE']._serialized_start=1208
-  _globals['_CLOUDSIMSERVICE']._serialized_end=1705
+  _globals['_OBSERVATION']._serialized_start=37
+  _globals['_OBSERVATION']._serialized_end=242
+  _globals['_OBSERVATIONDELTA']._serialized_start=244
+  _globals['_OBSERVATIONDELTA']._serialized_end=355
+  _globals['_STEPINFO']._serialized_start=358
+  _globals['_STEPINFO']._serialized_end=678
+  _globals['_STEPRESULT']._serialized_start=681
+  _globals['_STEPRESULT']._serialized_end=905
+  _globals['_RESETRESULT']._serialized_start=907
+  _globals['_RESETRESULT']._serialized_end=1023
+  _globals['_CREATEREQUEST']._serialized_start=1025
+  _globals['_CREATEREQUEST']._serialized_end=1100
+  _globals['_REGISTERTRACEREQUEST']._serialized_start=1102
+  _globals['_REGISTERTRACEREQUEST']._serialized_end=1143
+  _globals['_REGISTERTRACERESPONSE']._serialized_start=1145
+  _globals['_REGISTERTRACERESPONSE']._serialized_end=1207
+  _globals['_JOBRECORD']._serialized_start=1209
+  _globals['_JOBRECORD']._serialized_end=1289
+  _globals['_UPLOADJOBSREQUEST']._serialized_start=1291
+  _globals['_UPLOADJOBSREQUEST']._serialized_end=1365
+  _globals['_UPLOADJOBSRESPONSE']._serialized_start=1367
+  _globals['_UPLOADJOBSRESPONSE']._serialized_end=1406
+  _globals['_CREATERESPONSE']._serialized_start=1408
+  _globals['_CREATERESPONSE']._serialized_end=1468
+  _globals['_RESETREQUEST']._serialized_start=1470
+  _globals['_RESETREQUEST']._serialized_end=1535
+  _globals['_STEPREQUEST']._serialized_start=1537
+  _globals['_STEPREQUEST']._serialized_end=1647
+  _globals['_BATCHSTEPREQUEST']._serialized_start=1650
+  _globals['_BATCHSTEPREQUEST']._serialized_end=1833
+  _globals['_BATCHSTEPREQUEST_STEPITEM']._serialized_start=1767
+  _globals['_BATCHSTEPREQUEST_STEPITEM']._serialized_end=1833
+  _globals['_BATCHSTEPRESPONSE']._serialized_start=1835
+  _globals['_BATCHSTEPRESPONSE']._serialized_end=1897
+  _globals['_COLUMNARBATCHSTEPRESPONSE']._serialized_start=1900
+  _globals['_COLUMNARBATCHSTEPRESPONSE']._serialized_end=2491
+  _globals['_STEPSTREAMREQUEST']._serialized_start=2493
+  _globals['_STEPSTREAMREQUEST']._serialized_end=2609
+  _globals['_RUNEPISODEREQUEST']._serialized_start=2611
+  _globals['_RUNEPISODEREQUEST']._serialized_end=2680
+  _globals['_REWARDCHUNK']._serialized_start=2682
+  _globals['_REWARDCHUNK']._serialized_end=2732
+  _globals['_EPISODESUMMARY']._serialized_start=2735
+  _globals['_EPISODESUMMARY']._serialized_end=3117
+  _globals['_RUNEPISODERESPONSE']._serialized_start=3119
+  _globals['_RUNEPISODERESPONSE']._serialized_end=3245
+  _globals['_REPLAYREQUEST']._serialized_start=3248
+  _globals['_REPLAYREQUEST']._serialized_end=3377
+  _globals['_REPLAYRESPONSE']._serialized_start=3380
+  _globals['_REPLAYRESPONSE']._serialized_end=3616
+  _globals['_CLOSEREQUEST']._serialized_start=3618
+  _globals['_CLOSEREQUEST']._serialized_end=3648
+  _globals['_CLOSERESPONSE']._serialized_start=3650
+  _globals['_CLOSERESPONSE']._serialized_end=3665
+  _globals['_RENDERREQUEST']._serialized_start=3667
+  _globals['_RENDERREQUEST']._serialized_end=3698
+  _globals['_RENDERRESPONSE']._serialized_start=3700
+  _globals['_RENDERRESPONSE']._serialized_end=3742
+  _globals['_PINGREQUEST']._serialized_start=3744
+  _globals['_PINGREQUEST']._serialized_end=3757
+  _globals['_PONGRESPONSE']._serialized_start=3759
+  _globals['_PONGRESPONSE']._serialized_end=3788
+  _globals['_MAILBOXSTATSREQUEST']._serialized_start=3790
+  _globals['_MAILBOXSTATSREQUEST']._serialized_end=3827
+  _globals['_MAILBOXSTATS']._serialized_start=3830
+  _globals['_MAILBOXSTATS']._serialized_end=3971
+  _globals['_MAILBOXSTATSRESPONSE']._serialized_start=3973
+  _globals['_MAILBOXSTATSRESPONSE']._serialized_end=4044
+  _globals['_METRICSREQUEST']._serialized_start=4046
+  _globals['_METRICSREQUEST']._serialized_end=4078
+  _globals['_PHASELATENCY']._serialized_start=4081
+  _globals['_PHASELATENCY']._serialized_end=4241
+  _globals['_SIMULATIONLATENCY']._serialized_start=4243
+  _globals['_SIMULATIONLATENCY']._serialized_end=4322
+  _globals['_METRICSRESPONSE']._serialized_start=4324
+  _globals['_METRICSRESPONSE']._serialized_end=4395
+  _globals['_CLOUDSIMSERVICE']._serialized_start=4398
+  _globals['_CLOUDSIMSERVICE']._serialized_end=5563
 # @@protoc_insertion_point(module_scope)
@@ -43,6 +43,16 @@ class CloudSimServiceStub(object):
                 request_serializer=cloudsimplus__pb2.CreateRequest.SerializeToString,
                 response_deserializer=cloudsimplus__pb2.CreateResponse.FromString,
                 _registered_method=True)
+        self.registerTrace = channel.unary_unary(
+                '/daislab.cspg.CloudSimService/registerTrace',
+                request_serializer=cloudsimplus__pb2.RegisterTraceRequest.SerializeToString,
+                response_deserializer=cloudsimplus__pb2.RegisterTraceResponse.FromString,
+                _registered_method=True)
+        self.uploadJobs = channel.stream_unary(
+                '/daislab.cspg.CloudSimService/uploadJobs',
+                request_serializer=cloudsimplus__pb2.UploadJobsRequest.SerializeToString,
+                response_deserializer=cloudsimplus__pb2.UploadJobsResponse.FromString,
+                _registered_method=True)
         self.reset = channel.unary_unary(
                 '/daislab.cspg.CloudSimService/reset',
                 request_serializer=cloudsimplus__pb2.ResetRequest.SerializeToString,
@@ -58,6 +68,26 @@ class CloudSimServiceStub(object):
                 request_serializer=cloudsimplus__pb2.BatchStepRequest.SerializeToString,
                 response_deserializer=cloudsimplus__pb2.BatchStepResponse.FromString,
                 _registered_method=True)
+        self.batchStepColumnar = channel.unary_unary(
+                '/daislab.cspg.CloudSimService/batchStepColumnar',
+                request_serializer=cloudsimplus__pb2.BatchStepRequest.SerializeToString,
+                response_deserializer=cloudsimplus__pb2.ColumnarBatchStepResponse.FromString,
+                _registered_method=True)
+        self.stepStream = channel.stream_stream(
+                '/daislab.cspg.CloudSimService/stepStream',
+                request_serializer=cloudsimplus__pb2.StepStreamRequest.SerializeToString,
+                response_deserializer=cloudsimplus__pb2.StepResult.FromString,
+                _registered_method=True)
+        self.runEpisode = channel.unary_stream(
+                '/daislab.cspg.CloudSimService/runEpisode',
+                request_serializer=cloudsimplus__pb2.RunEpisodeRequest.SerializeToString,
+                response_deserializer=cloudsimplus__pb2.RunEpisodeResponse.FromString,
+                _registered_method=True)
+        self.replayActions = channel.unary_unary(
+                '/daislab.cspg.CloudSimService/replayActions',
+                request_serializer=cloudsimplus__pb2.ReplayRequest.SerializeToString,
+                response_deserializer=cloudsimplus__pb2.ReplayResponse.FromString,
+                _registered_method=True)
         self.close = channel.unary_unary(
                 '/daislab.cspg.CloudSimService/close',
                 request_serializer=cloudsimplus__pb2.CloseRequest.SerializeToString,
@@ -73,6 +103,16 @@ class CloudSimServiceStub(object):
                 request_serializer=cloudsimplus__pb2.PingRequest.SerializeToString,
                 response_deserializer=cloudsimplus__pb2.PongResponse.FromString,
                 _registered_method=True)
+        self.getMailboxStats = channel.unary_unary(
+                '/daislab.cspg.CloudSimService/getMailboxStats',
+                request_serializer=cloudsimplus__pb2.MailboxStatsRequest.SerializeToString,
+                response_deserializer=cloudsimplus__pb2.MailboxStatsResponse.FromString,
+                _registered_method=True)
+        self.getMetrics = channel.unary_unary(
+                '/daislab.cspg.CloudSimService/getMetrics',
+                request_serializer=cloudsimplus__pb2.MetricsRequest.SerializeToString,
+                response_deserializer=cloudsimplus__pb2.MetricsResponse.FromString,
+                _registered_method=True)
 
 
 class CloudSimServiceServicer(object):
@@ -91,6 +131,24 @@ class CloudSimServiceServicer(object):
         context.set_details('Method not implemented!')
         raise NotImplementedError('Method not implemented!')
 
+    def registerTrace(self, request, context):
+        """Parses a job trace once and keeps it in the JVM, keyed by the SHA-256 of
+        jobs_json (lowercase hex). Simulations created with that trace_hash share
+        one read-only copy of the jobs. Registering the same content again is cheap.
+        """
+        context.set_code(grpc.StatusCode.UNIMPLEMENTED)
+        context.set_details('Method not implemented!')
+        raise NotImplementedError('Method not implemented!')
+
+    def uploadJobs(self, request_iterator, context):
+        """Appends jobs to the job store of a simulation in chunks, without a JSON
+        payload. The first chunk names sim_id; the jobs take part from the next
+        reset on. Create the simulation with an empty jobs_json to upload them all.
+        """
+        context.set_code(grpc.StatusCode.UNIMPLEMENTED)
+        context.set_details('Method not implemented!')
+        raise NotImplementedError('Method not implemented!')
+
     def reset(self, request, context):
         """Resets the simulation identified by sim_id with an optional seed.
         """
@@ -113,6 +171,39 @@ class CloudSimServiceServicer(object):
         context.set_details('Method not implemented!')
         raise NotImplementedError('Method not implemented!')
 
+    def batchStepColumnar(self, request, context):
+        """Batch step with the results laid out column by column (see
+        ColumnarBatchStepResponse), ready to be viewed as numpy arrays
+        """
+        context.set_code(grpc.StatusCode.UNIMPLEMENTED)
+        context.set_details('Method not implemented!')
+        raise NotImplementedError('Method not implemented!')
+
+    def stepStream(self, request_iterator, context):
+        """Streaming step session — the first frame binds the stream to sim_id, every
+        following frame carries only an action. Results are returned in order, so the
+        client may keep several steps in flight on one HTTP/2 stream.
+        """
+        context.set_code(grpc.StatusCode.UNIMPLEMENTED)
+        context.set_details('Method not implemented!')
+        raise NotImplementedError('Method not implemented!')
+
+    def runEpisode(self, request, context):
+        """Resets a rule-based simulation and runs it to the end of the episode inside
+        the JVM. Streams the per-step rewards in chunks, then one summary.
+        """
+        context.set_code(grpc.StatusCode.UNIMPLEMENTED)
+        context.set_details('Method not implemented!')
+        raise NotImplementedError('Method not implemented!')
+
+    def replayActions(self, request, context):
+        """Replays a recorded action sequence server-side (rl policy)
+        and returns the trajectory packed column by column.
+        """
+        context.set_code(grpc.StatusCode.UNIMPLEMENTED)
+        context.set_details('Method not implemented!')
+        raise NotImplementedError('Method not implemented!')
+
     def close(self, request, context):
         """Tears down the simulation identified by sim_id.
         """
@@ -134,6 +225,20 @@ class CloudSimServiceServicer(object):
         context.set_details('Method not implemented!')
         raise NotImplementedError('Method not implemented!')
 
+    def getMailboxStats(self, request, context):
+        """Mailbox metrics of one simulation, or of all when sim_id is empty.
+        """
+        context.set_code(grpc.StatusCode.UNIMPLEMENTED)
+        context.set_details('Method not implemented!')
+        raise NotImplementedError('Method not implemented!')
+
+    def getMetrics(self, request, context):
+        """Per-phase latency percentiles of one simulation, or of all when sim_id is empty.
+        """
+        context.set_code(grpc.StatusCode.UNIMPLEMENTED)
+        context.set_details('Method not implemented!')
+        raise NotImplementedError('Method not implemented!')
+
 
 def add_CloudSimServiceServicer_to_server(servicer, server):
     rpc_method_handlers = {
@@ -142,6 +247,16 @@ def add_CloudSimServiceServicer_to_server(servicer, server):
                     request_deserializer=cloudsimplus__pb2.CreateRequest.FromString,
                     response_serializer=cloudsimplus__pb2.CreateResponse.SerializeToString,
             ),
+            'registerTrace': grpc.unary_unary_rpc_method_handler(
+                    servicer.registerTrace,
+                    request_deserializer=cloudsimplus__pb2.RegisterTraceRequest.FromString,
+                    response_serializer=cloudsimplus__pb2.RegisterTraceResponse.SerializeToString,
+            ),
+            'uploadJobs': grpc.stream_unary_rpc_method_handler(
+                    servicer.uploadJobs,
+                    request_deserializer=cloudsimplus__pb2.UploadJobsRequest.FromString,
+                    response_serializer=cloudsimplus__pb2.UploadJobsResponse.SerializeToString,
+            ),
             'reset': grpc.unary_unary_rpc_method_handler(
                     servicer.reset,
                     request_deserializer=cloudsimplus__pb2.ResetRequest.FromString,
@@ -157,6 +272,26 @@ def add_CloudSimServiceServicer_to_server(servicer, server):
                     request_deserializer=cloudsimplus__pb2.BatchStepRequest.FromString,
                     response_serializer=cloudsimplus__pb2.BatchStepResponse.SerializeToString,
             ),
+            'batchStepColumnar': grpc.unary_unary_rpc_method_handler(
+                    servicer.batchStepColumnar,
+                    request_deserializer=cloudsimplus__pb2.BatchStepRequest.FromString,
+                    response_serializer=cloudsimplus__pb2.ColumnarBatchStepResponse.SerializeToString,
+            ),
+            'stepStream': grpc.stream_stream_rpc_method_handler(
+                    servicer.stepStream,
+                    request_deserializer=cloudsimplus__pb2.StepStreamRequest.FromString,
+                    response_serializer=cloudsimplus__pb2.StepResult.SerializeToString,
+            ),
+            'runEpisode': grpc.unary_stream_rpc_method_handler(
+                    servicer.runEpisode,
+                    request_deserializer=cloudsimplus__pb2.RunEpisodeRequest.FromString,
+                    response_serializer=cloudsimplus__pb2.RunEpisodeResponse.SerializeToString,
+            ),
+            'replayActions': grpc.unary_unary_rpc_method_handler(
+                    servicer.replayActions,
+                    request_deserializer=cloudsimplus__pb2.ReplayRequest.FromString,
+                    response_serializer=cloudsimplus__pb2.ReplayResponse.SerializeToString,
+            ),
             'close': grpc.unary_unary_rpc_method_handler(
                     servicer.close,
                     request_deserializer=cloudsimplus__pb2.CloseRequest.FromString,
@@ -172,6 +307,16 @@ def add_CloudSimServiceServicer_to_server(servicer, server):
                     request_deserializer=cloudsimplus__pb2.PingRequest.FromString,
                     response_serializer=cloudsimplus__pb2.PongResponse.SerializeToString,
             ),
+            'getMailboxStats': grpc.unary_unary_rpc_method_handler(
+                    servicer.getMailboxStats,
+                    request_deserializer=cloudsimplus__pb2.MailboxStatsRequest.FromString,
+                    response_serializer=cloudsimplus__pb2.MailboxStatsResponse.SerializeToString,
+            ),
+            'getMetrics': grpc.unary_unary_rpc_method_handler(
+                    servicer.getMetrics,
+                    request_deserializer=cloudsimplus__pb2.MetricsRequest.FromString,
+                    response_serializer=cloudsimplus__pb2.MetricsResponse.SerializeToString,
+            ),
     }
     generic_handler = grpc.method_handlers_generic_handler(
             'daislab.cspg.CloudSimService', rpc_method_handlers)
@@ -214,6 +359,60 @@ class CloudSimService(object):
             metadata,
             _registered_method=True)
 
+    @staticmethod
+    def registerTrace(request,
+            target,
+            options=(),
+            channel_credentials=None,
+            call_credentials=None,
+            insecure=False,
+            compression=None,
+            wait_for_ready=None,
+            timeout=None,
+            metadata=None):
+        return grpc.experimental.unary_unary(
+            request,
+            target,
+            '/daislab.cspg.CloudSimService/registerTrace',
+            cloudsimplus__pb2.RegisterTraceRequest.SerializeToString,
+            cloudsimplus__pb2.RegisterTraceResponse.FromString,
+            options,
+            channel_credentials,
+            insecure,
+            call_credentials,
+            compression,
+            wait_for_ready,
+            timeout,
+            metadata,
+            _registered_method=True)
+
+    @staticmethod
+    def uploadJobs(request_iterator,
+            target,
+            options=(),
+            channel_credentials=None,
+            call_credentials=None,
+            insecure=False,
+            compression=None,
+            wait_for_ready=None,
+            timeout=None,
+            metadata=None):
+        return grpc.experimental.stream_unary(
+            request_iterator,
+            target,
+            '/daislab.cspg.CloudSimService/uploadJobs',
+            cloudsimplus__pb2.UploadJobsRequest.SerializeToString,
+            cloudsimplus__pb2.UploadJobsResponse.FromString,
+            options,
+            channel_credentials,
+            insecure,
+            call_credentials,
+            compression,
+            wait_for_ready,
+            timeout,
+            metadata,
+            _registered_method=True)
+
     @staticmethod
     def reset(request,
             target,
@@ -295,6 +494,114 @@ class CloudSimService(object):
             metadata,
             _registered_method=True)
 
+    @staticmethod
+    def batchStepColumnar(request,
+            target,
+            options=(),
+            channel_credentials=None,
+            call_credentials=None,
+            insecure=False,
+            compression=None,
+            wait_for_ready=None,
+            timeout=None,
+            metadata=None):
+        return grpc.experimental.unary_unary(
+            request,
+            target,
+            '/daislab.cspg.CloudSimService/batchStepColumnar',
+            cloudsimplus__pb2.BatchStepRequest.SerializeToString,
+            cloudsimplus__pb2.ColumnarBatchStepResponse.FromString,
+            options,
+            channel_credentials,
+            insecure,
+            call_credentials,
+            compression,
+            wait_for_ready,
+            timeout,
+            metadata,
+            _registered_method=True)
+
+    @staticmethod
+    def stepStream(request_iterator,
+            target,
+            options=(),
+            channel_credentials=None,
+            call_credentials=None,
+            insecure=False,
+            compression=None,
+            wait_for_ready=None,
+            timeout=None,
+            metadata=None):
+        return grpc.experimental.stream_stream(
+            request_iterator,
+            target,
+            '/daislab.cspg.CloudSimService/stepStream',
+            cloudsimplus__pb2.StepStreamRequest.SerializeToString,
+            cloudsimplus__pb2.StepResult.FromString,
+            options,
+            channel_credentials,
+            insecure,
+            call_credentials,
+            compression,
+            wait_for_ready,
+            timeout,
+            metadata,
+            _registered_method=True)
+
+    @staticmethod
+    def runEpisode(request,
+            target,
+            options=(),
+            channel_credentials=None,
+            call_credentials=None,
+            insecure=False,
+            compression=None,
+            wait_for_ready=None,
+            timeout=None,
+            metadata=None):
+        return grpc.experimental.unary_stream(
+            request,
+            target,
+            '/daislab.cspg.CloudSimService/runEpisode',
+            cloudsimplus__pb2.RunEpisodeRequest.SerializeToString,
+            cloudsimplus__pb2.RunEpisodeResponse.FromString,
+            options,
+            channel_credentials,
+            insecure,
+            call_credentials,
+            compression,
+            wait_for_ready,
+            timeout,
+            metadata,
+            _registered_method=True)
+
+    @staticmethod
+    def replayActions(request,
+            target,
+            options=(),
+            channel_credentials=None,
+            call_credentials=None,
+            insecure=False,
+            compression=None,
+            wait_for_ready=None,
+            timeout=None,
+            metadata=None):
+        return grpc.experimental.unary_unary(
+            request,
+            target,
+            '/daislab.cspg.CloudSimService/replayActions',
+            cloudsimplus__pb2.ReplayRequest.SerializeToString,
+            cloudsimplus__pb2.ReplayResponse.FromString,
+            options,
+            channel_credentials,
+            insecure,
+            call_credentials,
+            compression,
+            wait_for_ready,
+            timeout,
+            metadata,
+            _registered_method=True)
+
     @staticmethod
     def close(request,
             target,
@@ -375,3 +682,57 @@ class CloudSimService(object):
             timeout,
             metadata,
             _registered_method=True)
+
+    @staticmethod
+    def getMailboxStats(request,
+            target,
+            options=(),
+            channel_credentials=None,
+            call_credentials=None,
+            insecure=False,
+            compression=None,
+            wait_for_ready=None,
+            timeout=None,
+            metadata=None):
+        return grpc.experimental.unary_unary(
+            request,
+            target,
+            '/daislab.cspg.CloudSimService/getMailboxStats',
+            cloudsimplus__pb2.MailboxStatsRequest.SerializeToString,
+            cloudsimplus__pb2.MailboxStatsResponse.FromString,
+            options,
+            channel_credentials,
+            insecure,
+            call_credentials,
+            compression,
+            wait_for_ready,
+            timeout,
+            metadata,
+            _registered_method=True)
+
+    @staticmethod
+    def getMetrics(request,
+            target,
+            options=(),
+            channel_credentials=None,
+            call_credentials=None,
+            insecure=False,
+            compression=None,
+            wait_for_ready=None,
+            timeout=None,
+            metadata=None):
+        return grpc.experimental.unary_unary(
+            request,
+            target,
+            '/daislab.cspg.CloudSimService/getMetrics',
+            cloudsimplus__pb2.MetricsRequest.SerializeToString,
+            cloudsimplus__pb2.MetricsResponse.FromString,
+            options,
+            channel_credentials,
+            insecure,
+            call_credentials,
+            compression,
+            wait_for_ready,
+            timeout,
+            metadata,
+            _registered_method=True)
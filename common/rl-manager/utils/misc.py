@@ -454,17 +454,16 @@ def _init_grpc_subproc(rank, params, jobs_json, base_port):
     _worker_env = _create_grpc_env_for_rank(rank, params, jobs_json, base_port)
 
 
-def _create_grpc_env_for_rank(rank, params, jobs_json, base_port=50051):
+def _start_java_server(port_spec, probe_port):
     """
-    Create a GrpcSingleDC env in the current process, starting a Java JVM first.
-    Must be called from within the subprocess after fork/spawn.
+    Start a Java JVM running the CloudSim gRPC server on port_spec (a single port,
+    a range such as 50051-50066 or a comma-separated list) and wait until probe_port
+    accepts connections.
     """
     import subprocess as _subprocess
     import time as _time
     import socket as _socket
 
-    port = base_port + rank
-
     jar_path = os.environ.get(
         "CLOUDSIM_GATEWAY_JAR",
         "/app/cloudsimplus-gateway/build/libs/cloudsimplus-gateway-" + _gateway_version() + ".jar",
@@ -480,7 +479,7 @@ def _create_grpc_env_for_rank(rank, params, jobs_json, base_port=50051):
         "-Dlog.destination=" + log_dest,
         f"-Dexperiment.id={experiment_id}",
         "-jar", jar_path,
-        "--grpc", str(port),
+        "--grpc", port_spec,
     ]
     if sim_log_dir:
         java_cmd.insert(5, f"-Dlog.simDir={sim_log_dir}")
@@ -497,23 +496,82 @@ def _create_grpc_env_for_rank(rank, params, jobs_json, base_port=50051):
     deadline = _time.time() + 60
     while _time.time() < deadline:
         if proc.poll() is not None:
-            raise RuntimeError(f"Java gRPC server (port {port}) exited with code {proc.returncode}")
+            raise RuntimeError(f"Java gRPC server (port {port_spec}) exited with code {proc.returncode}")
         sock = _socket.socket(_socket.AF_INET, _socket.SOCK_STREAM)
         try:
             sock.settimeout(1)
-            sock.connect(("localhost", port))
+            sock.connect(("localhost", probe_port))
             sock.close()
             break
         except Exception:
             sock.close()
             _time.sleep(0.5)
+    return proc
+
+
+def _stop_java_server(proc):
+    if proc is not None and proc.poll() is None:
+        proc.terminate()
+        proc.wait(timeout=10)
+
+
+_shared_java_proc = None
+_shared_java_ports = None
+
 
+def _start_shared_java_server(base_port, num_cpu):
+    """
+    Start the one JVM shared by all workers of this process, listening on
+    base_port .. base_port + num_cpu - 1 so that worker `rank` connects to
+    base_port + rank. The server is started once and stopped by
+    _stop_shared_java_server (or at interpreter exit); envs never own it.
+    """
+    import atexit
+
+    global _shared_java_proc, _shared_java_ports
+    ports = (base_port, base_port + num_cpu - 1)
+    if _shared_java_proc is not None and _shared_java_proc.poll() is None:
+        if _shared_java_ports != ports:
+            raise RuntimeError(
+                f"Shared Java gRPC server already runs on ports {_shared_java_ports[0]}-"
+                f"{_shared_java_ports[1]}, cannot serve {ports[0]}-{ports[1]}"
+            )
+        return _shared_java_proc
+    _shared_java_proc = _start_java_server(f"{ports[0]}-{ports[1]}", base_port)
+    _shared_java_ports = ports
+    atexit.register(_stop_shared_java_server)
+    return _shared_java_proc
+
+
+def _stop_shared_java_server():
+    global _shared_java_proc, _shared_java_ports
+    _stop_java_server(_shared_java_proc)
+    _shared_java_proc = None
+    _shared_java_ports = None
+
+
+def _connect_grpc_env(params, jobs_json, port):
+    """Create a gRPC env connected to a running Java gRPC server on port."""
     from gym_cloudsimplus.envs import GrpcSingleDC, GrpcMultiDC
     # Use MultiDC if cloudlet_to_dc_assignment_policy is set (euromlsys uses this)
     if params.get("cloudlet_to_dc_assignment_policy"):
-        env = GrpcMultiDC(params=params, jobs_as_json=jobs_json, host="localhost", port=port)
-    else:
-        env = GrpcSingleDC(params=params, jobs_as_json=jobs_json, host="localhost", port=port)
+        return GrpcMultiDC(params=params, jobs_as_json=jobs_json, host="localhost", port=port)
+    return GrpcSingleDC(params=params, jobs_as_json=jobs_json, host="localhost", port=port)
+
+
+def _create_grpc_env_for_rank(rank, params, jobs_json, base_port=50051):
+    """
+    Create a GrpcSingleDC env in the current process, starting its own Java JVM first.
+    The env owns the JVM and stops it on close().
+    Must be called from within the subprocess after fork/spawn.
+    """
+    port = base_port + rank
+    proc = _start_java_server(str(port), port)
+    try:
+        env = _connect_grpc_env(params, jobs_json, port)
+    except Exception:
+        _stop_java_server(proc)
+        raise
     env._java_proc = proc
     return env
 
@@ -526,75 +584,22 @@ def _make_grpc_env_for_subproc():
 def make_grpc_env(rank, params, jobs_json, num_cpu, base_port=50051, log_dir=None):
     """
     Legacy factory for DummyVecEnv workers using gRPC.
-    Each subprocess spawns its own Java JVM running the CloudSim gRPC server.
+    All workers connect to one shared Java JVM running the CloudSim gRPC server
+    on ports base_port .. base_port + num_cpu - 1.
     """
-    import subprocess as _subprocess
-    import time as _time
-    import socket as _socket
-
     port = base_port + rank
 
-    def _start_java():
-        jar_path = os.environ.get(
-            "CLOUDSIM_GATEWAY_JAR",
-            "/app/cloudsimplus-gateway/build/libs/cloudsimplus-gateway-" + _gateway_version() + ".jar",
-        )
-        experiment_id = os.environ.get("EXPERIMENT_ID", "default")
-        log_dest = os.environ.get("JAVA_LOG_DESTINATION", "stdout")
-        log_level = os.environ.get("JAVA_LOG_LEVEL", "INFO")
-        sim_log_dir = os.environ.get("JAVA_SIM_LOG_DIR", "")
-        # -D properties MUST come before -jar, otherwise they go to program's args[] instead of JVM
-        java_cmd = [
-            "java",
-            "-Dlog.level=" + log_level,
-            "-Dlog.destination=" + log_dest,
-            f"-Dexperiment.id={experiment_id}",
-            "-jar", jar_path,
-            "--grpc", str(port),
-        ]
-        if sim_log_dir:
-            java_cmd.insert(5, f"-Dlog.simDir={sim_log_dir}")
-        proc = _subprocess.Popen(
-            java_cmd,
-            stdout=None if ("stdout" in log_dest) else _subprocess.DEVNULL,
-            stderr=_subprocess.STDOUT,
-            env={**os.environ, "JAVA_TOOL_OPTIONS": "-XX:+UseSerialGC"},
-        )
-        deadline = _time.time() + 60
-        while _time.time() < deadline:
-            if proc.poll() is not None:
-                raise RuntimeError(f"Java gRPC server (port {port}) exited with code {proc.returncode}")
-            sock = _socket.socket(_socket.AF_INET, _socket.SOCK_STREAM)
-            try:
-                sock.settimeout(1)
-                sock.connect(("localhost", port))
-                sock.close()
-                break
-            except Exception:
-                sock.close()
-                _time.sleep(0.5)
-        return proc
-
     def _init():
-        proc = _start_java()
-        try:
-            from gym_cloudsimplus.envs import GrpcSingleDC
-            env = GrpcSingleDC(params=params, jobs_as_json=jobs_json, host="localhost", port=port)
-        except Exception:
-            proc.terminate()
-            proc.wait()
-            raise
-        env._java_proc = proc
-        return env
+        _start_shared_java_server(base_port, num_cpu)
+        return _connect_grpc_env(params, jobs_json, port)
 
     return _init
 
 
 def _make_grpc_factory(rank, params, jobs_json, base_port):
-    """Create a factory function for a gRPC worker with specific rank."""
+    """Create a factory function for a gRPC worker connected to the shared JVM."""
     def _factory():
-        env = _create_grpc_env_for_rank(rank, params, jobs_json, base_port)
-        return env
+        return _connect_grpc_env(params, jobs_json, base_port + rank)
     return _factory
 
 
@@ -663,6 +668,7 @@ class ParallelBatchDummyVecEnv:
     def close(self):
         self._executor.shutdown(wait=False)
         self._inner_close()
+        _stop_shared_java_server()
 
     def seed(self, seed=None):
         return self._inner_seed(seed)
@@ -687,6 +693,8 @@ def vectorize_env(env, algorithm, num_cpu=None, params=None, jobs_json=None):
     if params and params.get("log_dir"):
         os.environ["JAVA_SIM_LOG_DIR"] = params["log_dir"]
 
+    # One JVM hosts every worker's simulation, worker i connects to base_port + i
+    _start_shared_java_server(base_port, num_cpu)
     env_fns = [_make_grpc_factory(i, params, jobs_json, base_port) for i in range(num_cpu)]
     env = ParallelBatchDummyVecEnv(env_fns, num_envs=num_cpu)
 
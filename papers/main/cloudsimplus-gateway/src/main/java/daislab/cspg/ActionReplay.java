@@ -0,0 +1,203 @@
+package daislab.cspg;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+/*
+ * Replays a recorded action sequence against a simulation and records the trajectory as
+ * primitive arrays. Actions are little-endian int32 quadruples [action_type, host_id, vm_index,
+ * vm_type], either sent inline or read from a memory-mapped file. Like EpisodeRollout, the
+ * steps run in chunks on the simulation's pinned thread.
+ */
+public class ActionReplay {
+
+    static final Set<StepInfoField> INFO_FIELDS = EnumSet.of(StepInfoField.IS_VALID);
+
+    private final IntBuffer actions;
+    private final int length;
+    private final boolean includeObservations;
+    private final int[] action = new int[SharedMemoryChannel.ACTION_INTS];
+
+    private int steps;
+    private double[] rewards;
+    private boolean[] valid;
+    private int[] jobCoresWaiting;
+    private int[] vmCounts;
+    private int[] jobCounts;
+    private int[] observations = new int[0];
+    private int[] observationOffsets;
+    private int observationInts;
+    private boolean terminated;
+    private boolean truncated;
+
+    public ActionReplay(final ByteBuffer actions, final boolean includeObservations) {
+        if (actions.remaining() % SharedMemoryChannel.ACTION_SLOT_BYTES != 0) {
+            throw new IllegalArgumentException("Action buffer of " + actions.remaining()
+                    + " bytes is not a whole number of " + SharedMemoryChannel.ACTION_INTS
+                    + "-int actions");
+        }
+        this.actions = actions.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        this.length = this.actions.remaining() / SharedMemoryChannel.ACTION_INTS;
+        this.includeObservations = includeObservations;
+        rewards = new double[length];
+        valid = new boolean[length];
+        jobCoresWaiting = new int[length];
+        vmCounts = new int[length];
+        jobCounts = new int[length];
+        observationOffsets = new int[includeObservations ? length + 1 : 0];
+    }
+
+    /**
+     * Maps a binary action file of the replay directory (the replay.dir system property)
+     * read-only. The mapping stays valid after the file is closed. A name that leads out of
+     * the directory, through ".." or a symbolic link, or to anything but a regular file of
+     * whole actions is rejected with the same message, so that a client learns nothing about
+     * the files on the server.
+     *
+     * @throws IllegalStateException    if no replay directory is configured
+     * @throws IllegalArgumentException if the name is rejected
+     */
+    public static ByteBuffer mapReplayFile(final String name) throws IOException {
+        final String replayDir = System.getProperty("replay.dir", "");
+        if (replayDir.isEmpty()) {
+            throw new IllegalStateException(
+                    "Replaying from a file needs a replay directory (-Dreplay.dir)");
+        }
+        final Path dir = Path.of(replayDir).toRealPath();
+        final Path file;
+        try {
+            final Path resolved = dir.resolve(name).normalize();
+            file = resolved.startsWith(dir) ? resolved.toRealPath() : null;
+        } catch (IOException | InvalidPathException e) {
+            throw rejectedFile(name);
+        }
+        if (file == null || !file.startsWith(dir) || !Files.isRegularFile(file)) {
+            throw rejectedFile(name);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() % SharedMemoryChannel.ACTION_SLOT_BYTES != 0
+                    || channel.size() > Integer.MAX_VALUE) {
+                throw rejectedFile(name);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static IllegalArgumentException rejectedFile(final String name) {
+        return new IllegalArgumentException(
+                "Not an action file in the replay directory: " + name);
+    }
+
+    public boolean isDone() {
+        return steps == length || terminated || truncated;
+    }
+
+    /**
+     * Replays up to maxSteps actions, stopping early at the end of the sequence or episode.
+     */
+    public void runSteps(final WrappedSimulation simulation, final int maxSteps) {
+        final int end = Math.min(length, steps + maxSteps);
+        while (steps < end && !terminated && !truncated) {
+            actions.get(steps * SharedMemoryChannel.ACTION_INTS, action);
+            add(simulation.step(action, INFO_FIELDS));
+        }
+    }
+
+    private void add(final SimulationStepResult result) {
+        final int[] observation = result.getObservation().getInfrastructureObservation();
+        rewards[steps] = result.getReward();
+        valid[steps] = result.getInfo().isValid();
+        jobCoresWaiting[steps] = result.getObservation().getJobCoresWaitingObservation();
+        countNodes(observation, steps);
+        if (includeObservations) {
+            observationOffsets[steps] = observationInts;
+            if (observationInts + observation.length > observations.length) {
+                observations = Arrays.copyOf(observations,
+                        Math.max(observationInts + observation.length, observations.length * 2));
+            }
+            System.arraycopy(observation, 0, observations, observationInts, observation.length);
+            observationInts += observation.length;
+            observationOffsets[steps + 1] = observationInts;
+        }
+        terminated = result.isTerminated();
+        truncated = result.isTruncated();
+        steps++;
+    }
+
+    /*
+     * Walks the tree array ([cores, children] per node, depth first: datacenter, hosts, VMs,
+     * jobs) and records how many VMs and jobs it holds.
+     */
+    private void countNodes(final int[] observation, final int step) {
+        final int hosts = observation[1];
+        int index = 2;
+        int vms = 0;
+        int jobs = 0;
+        for (int h = 0; h < hosts; h++) {
+            final int hostVms = observation[index + 1];
+            index += 2;
+            vms += hostVms;
+            for (int v = 0; v < hostVms; v++) {
+                final int vmJobs = observation[index + 1];
+                index += 2 + 2 * vmJobs;
+                jobs += vmJobs;
+            }
+        }
+        vmCounts[step] = vms;
+        jobCounts[step] = jobs;
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    public boolean isTerminated() {
+        return terminated;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public boolean isIncludeObservations() {
+        return includeObservations;
+    }
+
+    public double[] getRewards() {
+        return Arrays.copyOf(rewards, steps);
+    }
+
+    public boolean[] getValid() {
+        return Arrays.copyOf(valid, steps);
+    }
+
+    public int[] getJobCoresWaiting() {
+        return Arrays.copyOf(jobCoresWaiting, steps);
+    }
+
+    public int[] getVmCounts() {
+        return Arrays.copyOf(vmCounts, steps);
+    }
+
+    public int[] getJobCounts() {
+        return Arrays.copyOf(jobCounts, steps);
+    }
+
+    public int[] getObservations() {
+        return Arrays.copyOf(observations, observationInts);
+    }
+
+    public int[] getObservationOffsets() {
+        return Arrays.copyOf(observationOffsets, steps + 1);
+    }
+}
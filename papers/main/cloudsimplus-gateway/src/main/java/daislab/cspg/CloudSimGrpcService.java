@@ -2,20 +2,34 @@ package daislab.cspg;
 
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
 import daislab.cspg.grpc.*;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * gRPC service implementation that wraps MultiSimulationEnvironment's logic.
  * Each call is isolated - simulations are keyed by sim_id, allowing one
- * JVM to serve multiple concurrent simulation workers.
+ * JVM to serve multiple concurrent simulation workers. Every simulation is
+ * pinned to its own {@link SimulationExecutor} thread, so calls for one
+ * simulation run in order while different simulations run in parallel.
  */
 public class CloudSimGrpcService extends CloudSimServiceGrpc.CloudSimServiceImplBase {
 
@@ -26,11 +40,17 @@ public class CloudSimGrpcService extends CloudSimServiceGrpc.CloudSimServiceImpl
         LOGGER.info("CloudSimGrpcService constructor called");
     }
 
-    private final Map<String, WrappedSimulation> simulations = new ConcurrentHashMap<>();
+    private final Map<String, SimulationExecutor> simulations = new ConcurrentHashMap<>();
     private final SimulationFactory simulationFactory = new SimulationFactory();
+    private final TraceRegistry traceRegistry = new TraceRegistry(
+            Integer.getInteger("trace.registry.capacity", 8), simulationFactory::parseJobs);
     private final Gson gson = new Gson();
     private final Type mapType = new TypeToken<Map<String, Object>>() {}.getType();
 
+    private static final int DEFAULT_EPISODE_CHUNK_SIZE = 1024;
+    // replayed steps per call on the pinned thread
+    private static final int REPLAY_CHUNK_SIZE = 1024;
+
     private volatile boolean shutdownRequested = false;
 
     @Override
@@ -44,17 +64,26 @@ public class CloudSimGrpcService extends CloudSimServiceGrpc.CloudSimServiceImpl
             // Defensively coerce any Number values to their target types to avoid
             // ClassCastException when Gson returns Double instead of Integer
             coerceNumericParams(params);
-            WrappedSimulation simulation =
-                    simulationFactory.create(params, request.getJobsJson());
+            SimulationExecutor simulation = request.getTraceHash().isEmpty()
+                    ? simulationFactory.createPinned(params, request.getJobsJson())
+                    : createFromTrace(params, request.getTraceHash());
             String identifier = simulation.getIdentifier();
             simulations.put(identifier, simulation);
 
-            CreateResponse response = CreateResponse.newBuilder()
-                    .setSimId(identifier)
-                    .build();
-            responseObserver.onNext(response);
+            CreateResponse.Builder response = CreateResponse.newBuilder()
+                    .setSimId(identifier);
+            if (simulation.getSharedMemoryPath() != null) {
+                response.setSharedMemoryPath(simulation.getSharedMemoryPath().toString());
+            }
+            responseObserver.onNext(response.build());
             responseObserver.onCompleted();
             LOGGER.info("Simulation {} created via gRPC", identifier);
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Rejected createSimulation: {}", e.getMessage());
+            responseObserver.onError(
+                    io.grpc.Status.RESOURCE_EXHAUSTED
+                            .withDescription(e.getMessage())
+                            .asRuntimeException());
         } catch (Exception e) {
             LOGGER.error("Error creating simulation", e);
             responseObserver.onError(
@@ -64,19 +93,104 @@ public class CloudSimGrpcService extends CloudSimServiceGrpc.CloudSimServiceImpl
         }
     }
 
+    @Override
+    public void registerTrace(RegisterTraceRequest request,
+            StreamObserver<RegisterTraceResponse> responseObserver) {
+        try {
+            TraceRegistry.Trace trace = traceRegistry.register(request.getJobsJson());
+            responseObserver.onNext(RegisterTraceResponse.newBuilder()
+                    .setTraceHash(trace.getHash())
+                    .setJobCount(trace.getJobs().size())
+                    .build());
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            LOGGER.error("Error registering trace", e);
+            responseObserver.onError(
+                    io.grpc.Status.INTERNAL
+                            .withDescription(e.getMessage())
+                            .asRuntimeException());
+        }
+    }
+
+    @Override
+    public StreamObserver<UploadJobsRequest> uploadJobs(
+            StreamObserver<UploadJobsResponse> responseObserver) {
+        return new StreamObserver<>() {
+            private SimulationExecutor simulation;
+            private String simId;
+            private int jobCount;
+            private boolean failed;
+
+            @Override
+            public void onNext(UploadJobsRequest request) {
+                if (failed) {
+                    return;
+                }
+                try {
+                    if (simulation == null) {
+                        simId = request.getSimId();
+                        simulation = getValidSimulation(simId);
+                        LOGGER.info("uploadJobs started for {}", simId);
+                    }
+                    List<CloudletDescriptor> chunk = new ArrayList<>(request.getJobsCount());
+                    for (JobRecord job : request.getJobsList()) {
+                        chunk.add(new CloudletDescriptor(job.getJobId(),
+                                job.getSubmissionDelay(), job.getMi(), job.getCores()));
+                    }
+                    // appended on the simulation thread, which owns the job store
+                    jobCount = simulation.call(sim -> sim.appendJobs(simulationFactory
+                            .prepareJobs(sim.getSettings(), chunk, sim.getJobCount())));
+                } catch (Exception e) {
+                    LOGGER.error("Error uploading jobs to simulation {}", simId, e);
+                    failed = true;
+                    responseObserver.onError(
+                            io.grpc.Status.INTERNAL
+                                    .withDescription(e.getMessage())
+                                    .asRuntimeException());
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                LOGGER.warn("uploadJobs for {} cancelled by client: {}", simId, t.getMessage());
+            }
+
+            @Override
+            public void onCompleted() {
+                if (failed) {
+                    return;
+                }
+                LOGGER.info("Simulation {} has {} jobs after upload", simId, jobCount);
+                responseObserver.onNext(
+                        UploadJobsResponse.newBuilder().setJobCount(jobCount).build());
+                responseObserver.onCompleted();
+            }
+        };
+    }
+
     @Override
     public void reset(ResetRequest request, StreamObserver<ResetResult> responseObserver) {
         String simId = request.getSimId();
         LOGGER.info("gRPC reset called for {}", simId);
         try {
-            WrappedSimulation simulation = getValidSimulation(simId);
-            SimulationResetResult javaResult = simulation.reset(request.getSeed());
-
-            // Convert Java result to gRPC message
-            ResetResult grpcResult = ResetResult.newBuilder()
-                    .setObservation(convertObservation(javaResult.getObservation()))
-                    .setInfo(convertStepInfo(javaResult.getInfo()))
-                    .build();
+            SimulationExecutor simulation = getValidSimulation(simId);
+            // Convert Java result to gRPC message on the simulation thread, which owns
+            // the observation delta state
+            Set<StepInfoField> infoFields = StepInfoField.parse(
+                    request.getInfoFieldsList(), simulation.getDefaultInfoFields());
+            ResetResult grpcResult = simulation.call(sim -> {
+                SimulationResetResult javaResult = sim.reset(request.getSeed(), infoFields);
+                boolean packed = simulation.getSettings().isPackedObservations();
+                if (simulation.getDeltaEncoder() != null) {
+                    simulation.getDeltaEncoder().reset();
+                }
+                return ResetResult.newBuilder()
+                        .setObservation(
+                                convertObservation(javaResult.getObservation(), simulation, true))
+                        .setInfo(convertStepInfo(javaResult.getInfo(), packed))
+                        .setEpisode(javaResult.getEpisode())
+                        .build();
+            });
 
             responseObserver.onNext(grpcResult);
             responseObserver.onCompleted();
@@ -95,7 +209,7 @@ public class CloudSimGrpcService extends CloudSimServiceGrpc.CloudSimServiceImpl
         int actionSize = request.getActionList().size();
         LOGGER.debug("Step request: simId={}, actionList.size={}", simId, actionSize);
         try {
-            WrappedSimulation simulation = getValidSimulation(simId);
+            SimulationExecutor simulation = getValidSimulation(simId);
             if (request.getActionList().isEmpty()) {
                 String errMsg = "Action list is empty for simId=" + simId;
                 LOGGER.error(errMsg);
@@ -126,15 +240,11 @@ public class CloudSimGrpcService extends CloudSimServiceGrpc.CloudSimServiceImpl
                 return;
             }
 
-            SimulationStepResult javaResult = simulation.step(actionArray);
-
-            StepResult grpcResult = StepResult.newBuilder()
-                    .setObservation(convertObservation(javaResult.getObservation()))
-                    .setReward(javaResult.getReward())
-                    .setTerminated(javaResult.isTerminated())
-                    .setTruncated(javaResult.isTruncated())
-                    .setInfo(convertStepInfo(javaResult.getInfo()))
-                    .build();
+            Set<StepInfoField> infoFields = StepInfoField.parse(
+                    request.getInfoFieldsList(), simulation.getDefaultInfoFields());
+            StepResult grpcResult = simulation.call(sim -> convertStepResult(
+                    sim.step(actionArray, infoFields, request.getAutoReset()), simulation,
+                    request.getForceKeyframe()));
 
             responseObserver.onNext(grpcResult);
             responseObserver.onCompleted();
@@ -147,38 +257,280 @@ public class CloudSimGrpcService extends CloudSimServiceGrpc.CloudSimServiceImpl
         }
     }
 
+    /**
+     * Steps every item of the batch. Each item is queued on the thread its simulation is
+     * pinned to, so independent simulations advance in parallel while items that target the
+     * same simulation still run one at a time, in request order. Results are gathered back
+     * in the order of the request items.
+     */
     @Override
     public void batchStep(BatchStepRequest request,
             StreamObserver<BatchStepResponse> responseObserver) {
+        List<BatchStepRequest.StepItem> items = request.getItemsList();
+        List<Future<StepResult>> pending = new ArrayList<>(items.size());
+        for (BatchStepRequest.StepItem item : items) {
+            pending.add(submitBatchItem(item, request.getInfoFieldsList(),
+                    request.getAutoReset()));
+        }
+
         BatchStepResponse.Builder responseBuilder = BatchStepResponse.newBuilder();
-        for (BatchStepRequest.StepItem item : request.getItemsList()) {
-            String simId = item.getSimId();
-            try {
-                WrappedSimulation simulation = getValidSimulation(simId);
-                int[] actionArray = new int[item.getActionList().size()];
-                for (int i = 0; i < actionArray.length; i++) {
-                    actionArray[i] = item.getActionList().get(i);
+        for (int i = 0; i < items.size(); i++) {
+            responseBuilder.addResults(awaitBatchItem(items.get(i).getSimId(), pending.get(i)));
+        }
+        responseObserver.onNext(responseBuilder.build());
+        responseObserver.onCompleted();
+    }
+
+    /**
+     * Same stepping as {@link #batchStep}, but the results are assembled into columns by
+     * {@link ColumnarBatch} instead of one message per item.
+     */
+    @Override
+    public void batchStepColumnar(BatchStepRequest request,
+            StreamObserver<ColumnarBatchStepResponse> responseObserver) {
+        try {
+            // one column set for the whole batch; the tree array would only duplicate
+            // the observations column
+            EnumSet<StepInfoField> infoFields = EnumSet.copyOf(StepInfoField.parse(
+                    request.getInfoFieldsList(), EnumSet.allOf(StepInfoField.class)));
+            infoFields.remove(StepInfoField.OBSERVATION_TREE_ARRAY);
+
+            List<BatchStepRequest.StepItem> items = request.getItemsList();
+            List<Future<SimulationStepResult>> pending = new ArrayList<>(items.size());
+            for (BatchStepRequest.StepItem item : items) {
+                pending.add(submitColumnarItem(item, infoFields, request.getAutoReset()));
+            }
+
+            ColumnarBatch batch = new ColumnarBatch(items.size(), infoFields);
+            for (int i = 0; i < items.size(); i++) {
+                if (pending.get(i) == null) {
+                    continue;
                 }
-                SimulationStepResult javaResult = simulation.step(actionArray);
-                responseBuilder.addResults(StepResult.newBuilder()
-                        .setObservation(convertObservation(javaResult.getObservation()))
-                        .setReward(javaResult.getReward())
-                        .setTerminated(javaResult.isTerminated())
-                        .setTruncated(javaResult.isTruncated())
-                        .setInfo(convertStepInfo(javaResult.getInfo()))
-                        .build());
-            } catch (Exception e) {
-                LOGGER.error("batchStep item failed for simId={}: {}", simId, e.getMessage());
-                // Return a "truncated" result to indicate failure for this item
-                // without failing the entire batch
-                responseBuilder.addResults(StepResult.newBuilder()
-                        .setTerminated(false)
-                        .setTruncated(true)
+                try {
+                    batch.set(i, SimulationExecutor.await(pending.get(i)));
+                } catch (Exception e) {
+                    LOGGER.error("batchStepColumnar item failed for simId={}: {}",
+                            items.get(i).getSimId(), e.getMessage());
+                }
+            }
+            responseObserver.onNext(batch.build());
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            LOGGER.error("Error in batchStepColumnar", e);
+            responseObserver.onError(
+                    io.grpc.Status.INTERNAL
+                            .withDescription(e.getMessage())
+                            .asRuntimeException());
+        }
+    }
+
+    /**
+     * Streaming step session. The simulation is resolved once from the first frame and
+     * reused for every following action, so per-step identifier validation and map
+     * lookups are paid only when the stream is opened. Frames are processed in arrival
+     * order and each one produces exactly one {@link StepResult}.
+     */
+    @Override
+    public StreamObserver<StepStreamRequest> stepStream(
+            StreamObserver<StepResult> responseObserver) {
+        return new StreamObserver<>() {
+            private SimulationExecutor simulation;
+            private Set<StepInfoField> infoFields;
+            private String simId;
+            private boolean failed;
+
+            @Override
+            public void onNext(StepStreamRequest request) {
+                if (failed) {
+                    return;
+                }
+                try {
+                    if (simulation == null) {
+                        simId = request.getSimId();
+                        simulation = getValidSimulation(simId);
+                        infoFields = simulation.getDefaultInfoFields();
+                        LOGGER.info("stepStream bound to {}", simId);
+                    }
+                    if (request.getInfoFieldsCount() > 0) {
+                        infoFields = StepInfoField.parse(request.getInfoFieldsList(),
+                                simulation.getDefaultInfoFields());
+                    }
+                    if (request.getActionCount() == 0) {
+                        // bind-only or mask-only frame, no step requested
+                        return;
+                    }
+                    if (request.getActionCount() < 4) {
+                        fail(io.grpc.Status.INVALID_ARGUMENT.withDescription(
+                                "Action array too short: length=" + request.getActionCount()
+                                        + " for simId=" + simId));
+                        return;
+                    }
+                    int[] actionArray = new int[request.getActionCount()];
+                    for (int i = 0; i < actionArray.length; i++) {
+                        actionArray[i] = request.getAction(i);
+                    }
+                    Set<StepInfoField> stepInfoFields = infoFields;
+                    StepResult grpcResult = simulation.call(sim -> convertStepResult(
+                            sim.step(actionArray, stepInfoFields, request.getAutoReset()),
+                            simulation,
+                            request.getForceKeyframe()));
+                    responseObserver.onNext(grpcResult);
+                } catch (Exception e) {
+                    LOGGER.error("Error in stepStream for simulation {}", simId, e);
+                    fail(io.grpc.Status.INTERNAL.withDescription(e.getMessage()));
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                LOGGER.warn("stepStream for {} cancelled by client: {}", simId, t.getMessage());
+            }
+
+            @Override
+            public void onCompleted() {
+                if (!failed) {
+                    LOGGER.debug("stepStream for {} completed", simId);
+                    responseObserver.onCompleted();
+                }
+            }
+
+            private void fail(io.grpc.Status status) {
+                LOGGER.error(status.getDescription());
+                failed = true;
+                responseObserver.onError(status.asRuntimeException());
+            }
+        };
+    }
+
+    /**
+     * Runs a rule-based episode server-side. Every chunk of steps is one call on the pinned
+     * thread, so a close or render issued meanwhile is served between chunks.
+     */
+    @Override
+    public void runEpisode(RunEpisodeRequest request,
+            StreamObserver<RunEpisodeResponse> responseObserver) {
+        String simId = request.getSimId();
+        LOGGER.info("gRPC runEpisode called for {}", simId);
+        try {
+            SimulationExecutor simulation = getValidSimulation(simId);
+            String policy = simulation.getSettings().getVmAllocationPolicy();
+            if (!"rule-based".equals(policy)) {
+                String errMsg = "runEpisode needs a rule-based simulation, " + simId + " uses "
+                        + policy;
+                LOGGER.error(errMsg);
+                responseObserver.onError(io.grpc.Status.FAILED_PRECONDITION
+                        .withDescription(errMsg)
+                        .asRuntimeException());
+                return;
+            }
+            int chunkSize = request.getChunkSize() > 0
+                    ? request.getChunkSize()
+                    : DEFAULT_EPISODE_CHUNK_SIZE;
+            ServerCallStreamObserver<RunEpisodeResponse> serverObserver =
+                    (ServerCallStreamObserver<RunEpisodeResponse>) responseObserver;
+
+            long start = System.nanoTime();
+            EpisodeRollout rollout = new EpisodeRollout();
+            int episode = simulation.call(sim -> {
+                if (simulation.getDeltaEncoder() != null) {
+                    simulation.getDeltaEncoder().reset();
+                }
+                return sim.reset(request.getSeed(), EpisodeRollout.INFO_FIELDS).getEpisode();
+            });
+            while (!rollout.isDone()) {
+                if (serverObserver.isCancelled()) {
+                    LOGGER.warn("runEpisode for {} cancelled by client", simId);
+                    return;
+                }
+                int firstStep = rollout.getSteps();
+                double[] rewards = simulation.call(sim -> rollout.runSteps(sim, chunkSize));
+                responseObserver.onNext(RunEpisodeResponse.newBuilder()
+                        .setRewards(RewardChunk.newBuilder()
+                                .setFirstStep(firstStep)
+                                .setRewards(packDoubleArray(rewards)))
                         .build());
             }
+            double wallTimeMs = (System.nanoTime() - start) / 1e6;
+            LOGGER.info("runEpisode for {} finished: {} steps in {} ms", simId,
+                    rollout.getSteps(), wallTimeMs);
+            responseObserver.onNext(RunEpisodeResponse.newBuilder()
+                    .setSummary(convertEpisodeSummary(rollout, episode, wallTimeMs))
+                    .build());
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            LOGGER.error("Error running episode for simulation {}", simId, e);
+            responseObserver.onError(
+                    io.grpc.Status.INTERNAL
+                            .withDescription(e.getMessage())
+                            .asRuntimeException());
+        }
+    }
+
+    @Override
+    public void replayActions(ReplayRequest request,
+            StreamObserver<ReplayResponse> responseObserver) {
+        String simId = request.getSimId();
+        LOGGER.info("gRPC replayActions called for {}", simId);
+        try {
+            SimulationExecutor simulation = getValidSimulation(simId);
+            String policy = simulation.getSettings().getVmAllocationPolicy();
+            if (!"rl".equals(policy)) {
+                String errMsg = "replayActions needs an rl simulation, " + simId + " is "
+                        + policy + ("rule-based".equals(policy) ? " (use runEpisode)" : "");
+                LOGGER.error(errMsg);
+                responseObserver.onError(io.grpc.Status.FAILED_PRECONDITION
+                        .withDescription(errMsg)
+                        .asRuntimeException());
+                return;
+            }
+            ByteBuffer actions;
+            try {
+                actions = request.hasActionsPath()
+                        ? ActionReplay.mapReplayFile(request.getActionsPath())
+                        : request.getActions().asReadOnlyByteBuffer();
+            } catch (IllegalStateException e) {
+                LOGGER.error(e.getMessage());
+                responseObserver.onError(io.grpc.Status.FAILED_PRECONDITION
+                        .withDescription(e.getMessage())
+                        .asRuntimeException());
+                return;
+            } catch (IllegalArgumentException e) {
+                LOGGER.error(e.getMessage());
+                responseObserver.onError(io.grpc.Status.INVALID_ARGUMENT
+                        .withDescription(e.getMessage())
+                        .asRuntimeException());
+                return;
+            }
+            ActionReplay replay = new ActionReplay(actions, request.getIncludeObservations());
+
+            long start = System.nanoTime();
+            // replayed steps bypass the delta encoder, so whether or not the replay starts
+            // with a reset, the next observation sent as a delta must be a keyframe
+            simulation.call(sim -> {
+                if (simulation.getDeltaEncoder() != null) {
+                    simulation.getDeltaEncoder().reset();
+                }
+                return request.getReset() ? sim.reset(0, ActionReplay.INFO_FIELDS) : null;
+            });
+            while (!replay.isDone()) {
+                simulation.call(sim -> {
+                    replay.runSteps(sim, REPLAY_CHUNK_SIZE);
+                    return null;
+                });
+            }
+            int episode = simulation.call(WrappedSimulation::getEpisode);
+            LOGGER.info("replayActions for {} replayed {} steps in {} ms", simId,
+                    replay.getSteps(), (System.nanoTime() - start) / 1e6);
+
+            responseObserver.onNext(convertReplay(replay, episode));
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            LOGGER.error("Error replaying actions for simulation {}", simId, e);
+            responseObserver.onError(
+                    io.grpc.Status.INTERNAL
+                            .withDescription(e.getMessage())
+                            .asRuntimeException());
         }
-        responseObserver.onNext(responseBuilder.build());
-        responseObserver.onCompleted();
     }
 
     @Override
@@ -187,9 +539,15 @@ public class CloudSimGrpcService extends CloudSimServiceGrpc.CloudSimServiceImpl
         LOGGER.info("gRPC close called for {}", simId);
         try {
             validateIdentifier(simId);
-            WrappedSimulation simulation = simulations.remove(simId);
+            SimulationExecutor simulation = simulations.remove(simId);
             if (simulation != null) {
-                simulation.close();
+                try {
+                    simulation.close();
+                } finally {
+                    if (simulation.getTraceHash() != null) {
+                        traceRegistry.release(simulation.getTraceHash());
+                    }
+                }
             }
 
             if (simulations.isEmpty()) {
@@ -214,8 +572,8 @@ public class CloudSimGrpcService extends CloudSimServiceGrpc.CloudSimServiceImpl
     @Override
     public void render(RenderRequest request, StreamObserver<RenderResponse> responseObserver) {
         try {
-            WrappedSimulation simulation = getValidSimulation(request.getSimId());
-            String renderData = simulation.render();
+            SimulationExecutor simulation = getValidSimulation(request.getSimId());
+            String renderData = simulation.call(WrappedSimulation::render);
             responseObserver.onNext(
                     RenderResponse.newBuilder()
                             .setRenderDataJson(renderData)
@@ -236,15 +594,141 @@ public class CloudSimGrpcService extends CloudSimServiceGrpc.CloudSimServiceImpl
         responseObserver.onCompleted();
     }
 
+    @Override
+    public void getMailboxStats(MailboxStatsRequest request,
+            StreamObserver<MailboxStatsResponse> responseObserver) {
+        try {
+            MailboxStatsResponse.Builder builder = MailboxStatsResponse.newBuilder();
+            if (request.getSimId().isEmpty()) {
+                simulations.values().forEach(sim -> builder.addSimulations(convertMailbox(sim)));
+            } else {
+                builder.addSimulations(convertMailbox(getValidSimulation(request.getSimId())));
+            }
+            responseObserver.onNext(builder.build());
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            LOGGER.error("Error reading mailbox stats", e);
+            responseObserver.onError(
+                    io.grpc.Status.INTERNAL
+                            .withDescription(e.getMessage())
+                            .asRuntimeException());
+        }
+    }
+
+    @Override
+    public void getMetrics(MetricsRequest request,
+            StreamObserver<MetricsResponse> responseObserver) {
+        try {
+            MetricsResponse.Builder builder = MetricsResponse.newBuilder();
+            if (request.getSimId().isEmpty()) {
+                simulations.values().forEach(sim -> builder.addSimulations(convertMetrics(sim)));
+            } else {
+                builder.addSimulations(convertMetrics(getValidSimulation(request.getSimId())));
+            }
+            responseObserver.onNext(builder.build());
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            LOGGER.error("Error reading metrics", e);
+            responseObserver.onError(
+                    io.grpc.Status.INTERNAL
+                            .withDescription(e.getMessage())
+                            .asRuntimeException());
+        }
+    }
+
+    Collection<SimulationExecutor> getSimulations() {
+        return simulations.values();
+    }
+
     boolean isShutdownRequested() {
         return shutdownRequested;
     }
 
+    void shutdown() {
+        simulations.values().forEach(SimulationExecutor::shutdown);
+    }
+
     // ─────────────────────────────────────────────────────────────────────────
     // Internal helpers
     // ─────────────────────────────────────────────────────────────────────────
 
-    private WrappedSimulation getValidSimulation(String simId) {
+    private SimulationExecutor createFromTrace(Map<String, Object> params, String traceHash) {
+        TraceRegistry.Trace trace = traceRegistry.acquire(traceHash);
+        try {
+            SimulationExecutor simulation = simulationFactory.createPinned(params, trace);
+            simulation.setTraceHash(traceHash);
+            return simulation;
+        } catch (RuntimeException e) {
+            traceRegistry.release(traceHash);
+            throw e;
+        }
+    }
+
+    private Future<StepResult> submitBatchItem(BatchStepRequest.StepItem item,
+            List<String> infoFieldNames, boolean autoReset) {
+        String simId = item.getSimId();
+        try {
+            SimulationExecutor simulation = getValidSimulation(simId);
+            Set<StepInfoField> infoFields =
+                    StepInfoField.parse(infoFieldNames, simulation.getDefaultInfoFields());
+            int[] actionArray = new int[item.getActionCount()];
+            for (int i = 0; i < actionArray.length; i++) {
+                actionArray[i] = item.getAction(i);
+            }
+            return simulation.submit(sim -> convertStepResult(
+                    sim.step(actionArray, infoFields, autoReset), simulation,
+                    item.getForceKeyframe()));
+        } catch (Exception e) {
+            LOGGER.error("batchStep item failed for simId={}: {}", simId, e.getMessage());
+            return CompletableFuture.completedFuture(failedBatchItem());
+        }
+    }
+
+    /**
+     * Queues one columnar batch item, or returns {@code null} if it cannot be stepped.
+     */
+    private Future<SimulationStepResult> submitColumnarItem(BatchStepRequest.StepItem item,
+            Set<StepInfoField> infoFields, boolean autoReset) {
+        String simId = item.getSimId();
+        try {
+            SimulationExecutor simulation = getValidSimulation(simId);
+            int[] actionArray = new int[item.getActionCount()];
+            for (int i = 0; i < actionArray.length; i++) {
+                actionArray[i] = item.getAction(i);
+            }
+            return simulation.submit(sim -> {
+                // the columnar observation bypasses the delta encoder, so the next
+                // observation sent as a delta must start over from a keyframe
+                if (simulation.getDeltaEncoder() != null) {
+                    simulation.getDeltaEncoder().reset();
+                }
+                return sim.step(actionArray, infoFields, autoReset);
+            });
+        } catch (Exception e) {
+            LOGGER.error("batchStepColumnar item failed for simId={}: {}", simId, e.getMessage());
+            return null;
+        }
+    }
+
+    private StepResult awaitBatchItem(String simId, Future<StepResult> pending) {
+        try {
+            return SimulationExecutor.await(pending);
+        } catch (Exception e) {
+            LOGGER.error("batchStep item failed for simId={}: {}", simId, e.getMessage());
+            return failedBatchItem();
+        }
+    }
+
+    private static StepResult failedBatchItem() {
+        // Return a "truncated" result to indicate failure for this item
+        // without failing the entire batch
+        return StepResult.newBuilder()
+                .setTerminated(false)
+                .setTruncated(true)
+                .build();
+    }
+
+    private SimulationExecutor getValidSimulation(String simId) {
         validateIdentifier(simId);
         return simulations.get(simId);
     }
@@ -256,40 +740,221 @@ public class CloudSimGrpcService extends CloudSimServiceGrpc.CloudSimServiceImpl
         }
     }
 
-    private static daislab.cspg.grpc.Observation convertObservation(Observation obs) {
+    /**
+     * Converts a step result. Must run on the simulation's pinned thread when observation
+     * deltas are enabled, since encoding a delta updates the per-simulation state.
+     */
+    private static StepResult convertStepResult(SimulationStepResult javaResult,
+            SimulationExecutor simulation, boolean forceKeyframe) {
+        long start = TimeMeasurement.startTiming();
+        SimulationEvents.Marshalling marshallingEvent = new SimulationEvents.Marshalling();
+        marshallingEvent.begin();
+        boolean packed = simulation.getSettings().isPackedObservations();
+        StepResult.Builder builder = StepResult.newBuilder()
+                .setObservation(
+                        convertObservation(javaResult.getObservation(), simulation, forceKeyframe))
+                .setReward(javaResult.getReward())
+                .setTerminated(javaResult.isTerminated())
+                .setTruncated(javaResult.isTruncated())
+                .setInfo(convertStepInfo(javaResult.getInfo(), packed))
+                .setEpisode(javaResult.getEpisode());
+        if (javaResult.getResetObservation() != null) {
+            // the next episode starts from a keyframe, like after an explicit reset
+            if (simulation.getDeltaEncoder() != null) {
+                simulation.getDeltaEncoder().reset();
+            }
+            builder.setResetObservation(
+                    convertObservation(javaResult.getResetObservation(), simulation, true));
+        }
+        StepResult result = builder.build();
+        simulation.getMetrics().recordSince(StepMetrics.Phase.CONVERSION, start);
+        simulation.commitEvent(marshallingEvent);
+        return result;
+    }
+
+    private static daislab.cspg.grpc.Observation convertObservation(Observation obs,
+            SimulationExecutor simulation, boolean forceKeyframe) {
         daislab.cspg.grpc.Observation.Builder builder =
                 daislab.cspg.grpc.Observation.newBuilder()
-                        .addAllInfrastructureObservation(
-                                intArrayToList(obs.getInfrastructureObservation()))
                         .setJobCoresWaitingObservation(obs.getJobCoresWaitingObservation());
+        ObservationDeltaEncoder deltaEncoder = simulation.getDeltaEncoder();
+        if (deltaEncoder != null) {
+            builder.setInfrastructureObservationDelta(convertObservationDelta(
+                    deltaEncoder.encode(obs.getInfrastructureObservation(), forceKeyframe)));
+        } else if (simulation.getSettings().isPackedObservations()) {
+            builder.setInfrastructureObservationPacked(
+                    packIntArray(obs.getInfrastructureObservation()));
+        } else {
+            for (int value : obs.getInfrastructureObservation()) {
+                builder.addInfrastructureObservation(value);
+            }
+        }
         return builder.build();
     }
 
-    private static daislab.cspg.grpc.StepInfo convertStepInfo(SimulationStepInfo info) {
-        daislab.cspg.grpc.StepInfo.Builder builder =
-                daislab.cspg.grpc.StepInfo.newBuilder()
-                        .setJobWaitReward(info.getJobWaitReward())
-                        .setRunningVmCoresReward(info.getRunningVmCoresReward())
-                        .setUnutilizedVmCoresReward(info.getUnutilizedVmCoresReward())
-                        .setInvalidReward(info.getInvalidReward())
-                        .setIsValid(info.isValid())
-                        .addAllJobWaitTime(info.getJobWaitTime())  // List<Double>
-                        .setUnutilizedVmCoreRatio(info.getUnutilizedVmCoreRatio())
-                        .addAllObservationTreeArray(
-                                convertIntArray(info.getObservationTreeArrayAsList()))
-                        .setHostAffected(info.getHostAffected())
-                        .setCoresChanged(info.getCoresChanged());
+    private static daislab.cspg.grpc.ObservationDelta convertObservationDelta(
+            ObservationDeltaEncoder.Delta delta) {
+        daislab.cspg.grpc.ObservationDelta.Builder builder =
+                daislab.cspg.grpc.ObservationDelta.newBuilder()
+                        .setKeyframe(delta.isKeyframe())
+                        .setLength(delta.getLength());
+        for (int r = 0; r < delta.getRangeStarts().length; r++) {
+            builder.addRangeStart(delta.getRangeStarts()[r]);
+            builder.addRangeLength(delta.getRangeLengths()[r]);
+        }
+        for (int value : delta.getValues()) {
+            builder.addValues(value);
+        }
         return builder.build();
     }
 
-    private static java.util.List<Integer> intArrayToList(int[] arr) {
-        java.util.List<Integer> list = new java.util.ArrayList<>(arr.length);
-        for (int val : arr) list.add(val);
-        return list;
+    /**
+     * Copies the fields selected by the info mask of the step; the others keep their proto
+     * defaults and cost nothing on the wire.
+     */
+    private static daislab.cspg.grpc.StepInfo convertStepInfo(SimulationStepInfo info,
+            boolean packed) {
+        daislab.cspg.grpc.StepInfo.Builder builder = daislab.cspg.grpc.StepInfo.newBuilder();
+        if (info.includes(StepInfoField.JOB_WAIT_REWARD)) {
+            builder.setJobWaitReward(info.getJobWaitReward());
+        }
+        if (info.includes(StepInfoField.RUNNING_VM_CORES_REWARD)) {
+            builder.setRunningVmCoresReward(info.getRunningVmCoresReward());
+        }
+        if (info.includes(StepInfoField.UNUTILIZED_VM_CORES_REWARD)) {
+            builder.setUnutilizedVmCoresReward(info.getUnutilizedVmCoresReward());
+        }
+        if (info.includes(StepInfoField.INVALID_REWARD)) {
+            builder.setInvalidReward(info.getInvalidReward());
+        }
+        if (info.includes(StepInfoField.IS_VALID)) {
+            builder.setIsValid(info.isValid());
+        }
+        if (info.includes(StepInfoField.JOB_WAIT_TIME)) {
+            builder.addAllJobWaitTime(info.getJobWaitTime());  // List<Double>
+        }
+        if (info.includes(StepInfoField.UNUTILIZED_VM_CORE_RATIO)) {
+            builder.setUnutilizedVmCoreRatio(info.getUnutilizedVmCoreRatio());
+        }
+        if (info.includes(StepInfoField.HOST_AFFECTED)) {
+            builder.setHostAffected(info.getHostAffected());
+        }
+        if (info.includes(StepInfoField.CORES_CHANGED)) {
+            builder.setCoresChanged(info.getCoresChanged());
+        }
+        if (info.includes(StepInfoField.OBSERVATION_TREE_ARRAY)) {
+            if (packed) {
+                builder.setObservationTreeArrayPacked(
+                        packIntArray(info.getObservationTreeArray()));
+            } else {
+                for (int value : info.getObservationTreeArray()) {
+                    builder.addObservationTreeArray(value);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    private static EpisodeSummary convertEpisodeSummary(EpisodeRollout rollout, int episode,
+            double wallTimeMs) {
+        int steps = rollout.getSteps();
+        int finishedJobs = rollout.getFinishedJobs();
+        return EpisodeSummary.newBuilder()
+                .setEpisode(episode)
+                .setSteps(steps)
+                .setTerminated(rollout.isTerminated())
+                .setTruncated(rollout.isTruncated())
+                .setTotalReward(rollout.getTotalReward())
+                .setJobWaitRewardSum(rollout.getJobWaitRewardSum())
+                .setRunningVmCoresRewardSum(rollout.getRunningVmCoresRewardSum())
+                .setUnutilizedVmCoresRewardSum(rollout.getUnutilizedVmCoresRewardSum())
+                .setInvalidRewardSum(rollout.getInvalidRewardSum())
+                .setMeanUnutilizedVmCoreRatio(
+                        steps == 0 ? 0 : rollout.getUnutilizedVmCoreRatioSum() / steps)
+                .setFinishedJobs(finishedJobs)
+                .setMeanJobWaitTime(
+                        finishedJobs == 0 ? 0 : rollout.getJobWaitTimeSum() / finishedJobs)
+                .setMaxJobWaitTime(rollout.getMaxJobWaitTime())
+                .setWallTimeMs(wallTimeMs)
+                .build();
+    }
+
+    private static MailboxStats convertMailbox(SimulationExecutor simulation) {
+        return MailboxStats.newBuilder()
+                .setSimId(simulation.getIdentifier())
+                .setDepth(simulation.getMailboxDepth())
+                .setMaxDepth(simulation.getMaxMailboxDepth())
+                .setCalls(simulation.getCalls())
+                .setQueueWaitNanosTotal(simulation.getQueueWaitNanosTotal())
+                .setQueueWaitNanosMax(simulation.getQueueWaitNanosMax())
+                .build();
+    }
+
+    private static SimulationLatency convertMetrics(SimulationExecutor simulation) {
+        SimulationLatency.Builder builder =
+                SimulationLatency.newBuilder().setSimId(simulation.getIdentifier());
+        for (StepMetrics.Phase phase : StepMetrics.Phase.values()) {
+            LatencyHistogram histogram = simulation.getMetrics().get(phase);
+            builder.addPhases(PhaseLatency.newBuilder()
+                    .setPhase(phase.name().toLowerCase())
+                    .setCount(histogram.getCount())
+                    .setMeanNanos(histogram.getMean())
+                    .setP50Nanos(histogram.getValueAtPercentile(50))
+                    .setP90Nanos(histogram.getValueAtPercentile(90))
+                    .setP99Nanos(histogram.getValueAtPercentile(99))
+                    .setP999Nanos(histogram.getValueAtPercentile(99.9))
+                    .setMaxNanos(histogram.getMax()));
+        }
+        return builder.build();
     }
 
-    private static java.util.List<Integer> convertIntArray(java.util.List<Integer> list) {
-        return list;
+    private static ReplayResponse convertReplay(ActionReplay replay, int episode) {
+        ReplayResponse.Builder builder = ReplayResponse.newBuilder()
+                .setSteps(replay.getSteps())
+                .setTerminated(replay.isTerminated())
+                .setTruncated(replay.isTruncated())
+                .setEpisode(episode)
+                .setRewards(packDoubleArray(replay.getRewards()))
+                .setValid(packBitset(replay.getValid()))
+                .setJobCoresWaiting(packIntArray(replay.getJobCoresWaiting()))
+                .setVmCounts(packIntArray(replay.getVmCounts()))
+                .setJobCounts(packIntArray(replay.getJobCounts()));
+        if (replay.isIncludeObservations()) {
+            builder.setObservations(packIntArray(replay.getObservations()))
+                    .setObservationOffsets(packIntArray(replay.getObservationOffsets()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Packs flags into a bitset holding flag i in bit (i % 8) of byte (i / 8).
+     */
+    private static ByteString packBitset(boolean[] values) {
+        byte[] bitset = new byte[(values.length + 7) / 8];
+        for (int i = 0; i < values.length; i++) {
+            if (values[i]) {
+                bitset[i >>> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+        return UnsafeByteOperations.unsafeWrap(bitset);
+    }
+
+    private static ByteString packDoubleArray(double[] values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Double.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asDoubleBuffer().put(values);
+        return UnsafeByteOperations.unsafeWrap(buffer.array());
+    }
+
+    /**
+     * Packs an int array into little-endian int32 bytes straight from the primitive array,
+     * without boxing. The backing array is handed to protobuf without a second copy.
+     */
+    private static ByteString packIntArray(int[] values) {
+        ByteBuffer buffer =
+                ByteBuffer.allocate(values.length * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asIntBuffer().put(values);
+        return UnsafeByteOperations.unsafeWrap(buffer.array());
     }
 
     /**
@@ -313,7 +978,9 @@ public class CloudSimGrpcService extends CloudSimServiceGrpc.CloudSimServiceImpl
                         || key.equals("host_pe_mips") || key.equals("host_ram")
                         || key.equals("host_storage") || key.equals("host_bw")
                         || key.equals("small_vm_ram") || key.equals("small_vm_storage")
-                        || key.equals("small_vm_bw")) {
+                        || key.equals("small_vm_bw")
+                        || key.equals("observation_keyframe_interval")
+                        || key.equals("shared_memory_slots")) {
                     entry.setValue(num.intValue());
                 }
             }
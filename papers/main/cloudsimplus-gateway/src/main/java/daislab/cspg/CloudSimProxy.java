@@ -23,9 +23,12 @@ import org.cloudsimplus.listeners.EventListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Comparator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -34,18 +37,31 @@ import java.util.PriorityQueue;
 
 public class CloudSimProxy {
     private final Logger LOGGER = LoggerFactory.getLogger(CloudSimProxy.class.getSimpleName());
+    private static final int MAX_CLOCK_ITERATIONS = 1000; // safety check, see proceedClockTo
     private final SimulationSettings settings;
     private final CloudSimPlus cloudSimPlus;
     private final Datacenter datacenter;
     private final DatacenterBrokerFirstFitFixed broker;
     private final VmCost vmCost;
+    private final VmCapacityLedger capacity;
+    private final StepMetrics metrics;
     private final List<Cloudlet> inputJobs; // all jobs to keep track of statuses
-    private final PriorityQueue<Cloudlet> jobQueue; // jobs to be submitted - sorted by arrival time
+    private final Cloudlet[] arrivals; // all input jobs sorted by arrival time
+    private final double[] arrivalTimes; // the arrival time of each job in arrivals
+    private int nextArrival; // index of the first job in arrivals that has not arrived yet
+    private int arrivedByClock; // jobs in arrivals whose arrival time is <= clock()
+    // maintained by the start and finish listeners and destroyVm
+    private long runningJobs;
+    private long finishedJobs;
+    private final List<Cloudlet> arrivedJobs; // arrived, not submitted - sorted by arrival time
+    private final PriorityQueue<Cloudlet> requeuedJobs; // put back by rescheduleCloudlets
     private final Map<Long, Double> jobArrivalTimeMap; // map to keep track of arrival times
     private List<Double> jobsFinishedWaitTimeLastTimestep;
     // private List<Double> jobsFinishedWaitTimes;
     private int vmsCreated;
     private boolean firstStep;
+    private long processedEvents;
+    private long lastTimestepEvents;
 
     /**
      * Constructs a new CloudSimProxy instance with the specified simulation settings and input
@@ -53,17 +69,27 @@ public class CloudSimProxy {
      *
      * @param settings the simulation settings to be used
      * @param inputJobs the list of Cloudlet jobs to be processed
+     * @param metrics the latency histograms the timestep phases are recorded in
      */
-    public CloudSimProxy(final SimulationSettings settings, final List<Cloudlet> inputJobs) {
+    public CloudSimProxy(final SimulationSettings settings, final List<Cloudlet> inputJobs,
+            final StepMetrics metrics) {
         this.settings = settings;
+        this.metrics = metrics;
         this.inputJobs = new ArrayList<>(inputJobs);
-        jobQueue = new PriorityQueue<>(inputJobs.size(),
-                (c1, c2) -> Double.compare(c1.getSubmissionDelay(), c2.getSubmissionDelay()));
-        jobQueue.addAll(inputJobs);
-        jobArrivalTimeMap = jobQueue.stream()
+        // stable sort, so jobs arriving at the same time keep their trace order
+        arrivals = inputJobs.stream()
+                .sorted(Comparator.comparingDouble(Cloudlet::getSubmissionDelay))
+                .toArray(Cloudlet[]::new);
+        arrivalTimes = Stream.of(arrivals).mapToDouble(Cloudlet::getSubmissionDelay).toArray();
+        arrivedJobs = new ArrayList<>();
+        jobArrivalTimeMap = inputJobs.stream()
                 .collect(Collectors.toMap(Cloudlet::getId, Cloudlet::getSubmissionDelay));
+        requeuedJobs = new PriorityQueue<>(
+                Comparator.comparingDouble((Cloudlet c) -> jobArrivalTimeMap.get(c.getId()))
+                        .thenComparingLong(Cloudlet::getId));
         cloudSimPlus = new CloudSimPlus(settings.getMinTimeBetweenEvents());
-        broker = new DatacenterBrokerFirstFitFixed(cloudSimPlus);
+        capacity = new VmCapacityLedger();
+        broker = new DatacenterBrokerFirstFitFixed(cloudSimPlus, capacity);
         broker.setShutdownWhenIdle(false); // important to keep the broker running
         // no need because set in createVm()
         // broker.setVmDestructionDelay(2 * settings.getMinTimeBetweenEvents());
@@ -97,8 +123,8 @@ public class CloudSimProxy {
      * Submits the initial list of VMs to the broker.
      * <p>
      * This method creates an initial list of VMs based on the VM types and counts specified in the
-     * settings. Each VM is assigned a description corresponding to its type. The VMs are then added
-     * to the cost tracking list and submitted to the broker.
+     * settings. Each VM is assigned a description corresponding to its type and submitted to the
+     * broker; {@link #createVm} has already added it to the cost tracking.
      * </p>
      */
     private void submitInitialVmList() {
@@ -106,10 +132,9 @@ public class CloudSimProxy {
         for (int i = 0; i < settings.VM_TYPES.length; i++) {
             String vmType = settings.VM_TYPES[i];
             List<Vm> vmList = createVmList(settings.getInitialVmCounts()[i], vmType);
-            initialVmList.forEach(v -> v.setDescription(vmType));
+            vmList.forEach(v -> v.setDescription(vmType));
             initialVmList.addAll(vmList);
         }
-        initialVmList.forEach(v -> vmCost.addNewVmToList(v));
         broker.submitVmList(initialVmList);
     }
 
@@ -123,18 +148,16 @@ public class CloudSimProxy {
     }
 
     /**
-     * Ensures that all jobs are completed before the simulation ends. This method sets up an event
-     * listener that checks if there are unfinished jobs when there is only one future event left.
-     * If there are unfinished jobs, it sends an empty event to keep the simulation running.
+     * Counts the events the simulation processes, so that {@link #proceedClockTo} can report how
+     * many events advancing the clock took.
+     * <p>
+     * The simulation is kept running by the sentinel event {@link #proceedClockTo} schedules at
+     * its target time rather than by inspecting the future event queue after every event, so this
+     * listener does constant work per event.
+     * </p>
      */
     private void ensureAllJobsCompleteBeforeSimulationEnds() {
-        double interval = settings.getTimestepInterval();
-        cloudSimPlus.addOnEventProcessingListener(info -> {
-            if (getNumberOfFutureEvents() == 1 && hasUnfinishedJobs()) {
-                LOGGER.trace("Jobs not finished. Sending empty event to keep simulation running.");
-                cloudSimPlus.send(datacenter, datacenter, interval, CloudSimTag.NONE, null);
-            }
-        });
+        cloudSimPlus.addOnEventProcessingListener(info -> processedEvents++);
     }
 
     /**
@@ -223,7 +246,7 @@ public class CloudSimProxy {
      *         multiplier. - An optimized cloudlet scheduler. - A shutdown delay as specified in the
      *         settings. - A submission delay (startup delay) as specified in the settings.
      *
-     *         The VM is also added to the VM cost tracking list.
+     *         The VM is also added to the VM cost tracking and the capacity ledger.
      */
     private Vm createVm(final String type) {
         int sizeMultiplier = settings.getSizeMultiplier(type);
@@ -236,7 +259,8 @@ public class CloudSimProxy {
                 .setShutDownDelay(settings.getVmShutdownDelay());
 
         vm.setSubmissionDelay(settings.getVmStartupDelay());
-        vmCost.addNewVmToList(vm);
+        vmCost.addNewVm(vm, type);
+        capacity.track(vm);
         return vm;
     }
 
@@ -256,35 +280,42 @@ public class CloudSimProxy {
     }
 
     /**
-     * Advances the simulation clock to the specified target time. This method runs the simulation
-     * in increments until the target time is reached or the maximum number of iterations is
-     * exceeded to prevent an infinite loop.
+     * Advances the simulation clock to the specified target time.
+     * <p>
+     * A no-op sentinel event is scheduled at the target time first, so the future event queue
+     * cannot run dry before the clock gets there and every call to {@code runFor} either
+     * processes the events of one instant up to the target or moves the clock onto it. The
+     * number of calls is therefore bounded by the distinct event times up to the target; the
+     * iteration limit only guards against entities that keep scheduling events at the same
+     * instant. Once all jobs have finished and nothing is left to process, the simulation is let
+     * finish, as it did when it ran out of events.
+     * </p>
      *
      * @param targetTime The target time to advance the simulation clock to.
+     * @return the number of events processed while advancing the clock
      */
-    private void proceedClockTo(final double targetTime) {
-        double adjustedInterval = targetTime - clock();
-        int maxIterations = 1000; // Safety check to prevent infinite loop
+    private long proceedClockTo(final double targetTime) {
+        final long eventsBefore = processedEvents;
         int iterations = 0;
 
         LOGGER.info("{}: Proceeding clock to {}", clock(), targetTime);
 
-        // Run the simulation until the target time is reached
-        while (cloudSimPlus.runFor(adjustedInterval) < targetTime) {
-            // Calculate the remaining time to the target
-            adjustedInterval = targetTime - clock();
-            // Use the minimum time between events if the remaining time is non-positive
-            adjustedInterval =
-                    adjustedInterval <= 0 ? settings.getMinTimeBetweenEvents() : adjustedInterval;
-
-            // Increment the iteration counter and break if it exceeds the maximum allowed
-            // iterations
-            if (++iterations >= maxIterations) {
-                LOGGER.warn(
-                        "Exceeded maximum iterations in runForInternal. Breaking the loop to prevent infinite loop.");
+        if (targetTime > clock()) {
+            cloudSimPlus.send(datacenter, datacenter, targetTime - clock(), CloudSimTag.NONE,
+                    null);
+        }
+        while (clock() < targetTime && cloudSimPlus.isRunning()) {
+            cloudSimPlus.runFor(targetTime - clock());
+            if (++iterations >= MAX_CLOCK_ITERATIONS) {
+                LOGGER.warn("Exceeded {} iterations proceeding the clock to {}. Breaking the loop "
+                        + "to prevent an infinite loop.", MAX_CLOCK_ITERATIONS, targetTime);
                 break;
             }
         }
+        if (!hasUnfinishedJobs() && cloudSimPlus.noFutureEvents()) {
+            cloudSimPlus.runFor(0);
+        }
+        return processedEvents - eventsBefore;
     }
 
     int calculateJobCoresWaiting() {
@@ -407,10 +438,14 @@ public class CloudSimProxy {
         final double targetTime = calculateTargetTime();
         ensureSimulationIsRunning();
         jobsFinishedWaitTimeLastTimestep.clear();
+        long phaseStart = TimeMeasurement.startTiming();
         List<Cloudlet> jobsToSubmitList = getJobsToSubmitAtThisTimestep(targetTime);
         maybeClearLists();
         tryToSubmitJobs(jobsToSubmitList);
-        proceedClockTo(targetTime);
+        metrics.recordSince(StepMetrics.Phase.SUBMIT_JOBS, phaseStart);
+        phaseStart = TimeMeasurement.startTiming();
+        lastTimestepEvents = proceedClockTo(targetTime);
+        metrics.recordSince(StepMetrics.Phase.PROCEED_CLOCK, phaseStart);
         if (shouldPrintStats()) {
             printCloudletStatus();
         }
@@ -556,6 +591,9 @@ public class CloudSimProxy {
         cloudlet.addOnStartListener(new EventListener<CloudletVmEventInfo>() {
             @Override
             public void update(CloudletVmEventInfo info) {
+                // fires on every transition to INEXEC, also after a reschedule
+                runningJobs++;
+                capacity.cloudletStarted();
                 LOGGER.debug("Cloudlet: {} started running on VM {} at {} ", cloudlet.getId(),
                         cloudlet.getVm().getId(), clock());
             }
@@ -579,6 +617,9 @@ public class CloudSimProxy {
                         cloudlet.getVm().getCloudletScheduler().getCloudletExecList().size(),
                         cloudlet.getVm().getHost(), cloudlet.getVm().getHost().getVmList().size(),
                         clock(), cloudlet.getTotalExecutionTime());
+                runningJobs--;
+                finishedJobs++;
+                capacity.cloudletFinished();
                 final double waitTime =
                         cloudlet.getStartTime() - jobArrivalTimeMap.get(cloudlet.getId());
                 jobsFinishedWaitTimeLastTimestep.add(waitTime);
@@ -592,20 +633,32 @@ public class CloudSimProxy {
      * Retrieves a list of Cloudlets that are ready to be submitted at the current timestep. The
      * Cloudlets are selected based on their submission delay, which must be less than or equal to
      * the specified target time.
+     * <p>
+     * Rescheduled cloudlets come first, then the arrived ones in arrival order. Jobs that arrive
+     * by targetTime are moved from the sorted arrival index to the arrived list once, so a call
+     * costs O(k) in the number of jobs due. The target time never decreases during an episode.
+     * </p>
      *
      * @param targetTime The target time to retrieve Cloudlets for submission.
      * @return A list of Cloudlets that are ready to be submitted at the specified target time.
      */
     List<Cloudlet> getJobsToSubmitAtThisTimestep(final double targetTime) {
-        final List<Cloudlet> jobsToSubmit =
-                jobQueue.stream().takeWhile(cloudlet -> cloudlet.getSubmissionDelay() <= targetTime)
-                        .collect(Collectors.toList());
-        return jobsToSubmit;
+        if (!requeuedJobs.isEmpty()) {
+            final List<Cloudlet> requeued = new ArrayList<>(requeuedJobs.size());
+            while (!requeuedJobs.isEmpty()) {
+                requeued.add(requeuedJobs.poll());
+            }
+            arrivedJobs.addAll(0, requeued);
+        }
+        while (nextArrival < arrivals.length
+                && arrivals[nextArrival].getSubmissionDelay() <= targetTime) {
+            arrivedJobs.add(arrivals[nextArrival++]);
+        }
+        return new ArrayList<>(arrivedJobs);
     }
 
-    private long getMaxFreeVmCores() {
-        return broker.getVmExecList().stream().mapToLong(vm -> vm.getExpectedFreePesNumber()).max()
-                .orElse(0);
+    long getMaxFreeVmCores() {
+        return capacity.getMaxExpectedFreePes();
     }
 
     /**
@@ -640,7 +693,9 @@ public class CloudSimProxy {
         }
 
         if (!jobsToSubmit.isEmpty()) {
-            jobQueue.removeAll(jobsToSubmit);
+            final Set<Cloudlet> submitted = Collections.newSetFromMap(new IdentityHashMap<>());
+            submitted.addAll(jobsToSubmit);
+            arrivedJobs.removeIf(submitted::contains);
             LOGGER.info("[{} - {}]: Submitting {} jobs", now, targetTime, jobsToSubmit.size());
             submitCloudletList(jobsToSubmit);
         }
@@ -669,9 +724,21 @@ public class CloudSimProxy {
     }
 
     public long getAllocatedCores() {
-        final long reduce = broker.getVmExecList().parallelStream().map(Vm::getPesNumber)
-                .reduce(Long::sum).orElse(0L);
-        return reduce;
+        return capacity.getAllocatedPes();
+    }
+
+    /**
+     * @return the jobs in the execution lists of the running VMs
+     */
+    public long getRunningCloudletsCount() {
+        return capacity.getRunningCloudlets();
+    }
+
+    /**
+     * @return the cores of the running VMs that no job has been mapped to
+     */
+    public long getUnutilizedVmCores() {
+        return capacity.getExpectedFreePes();
     }
 
     public double[] getVmCpuUsage() {
@@ -685,29 +752,61 @@ public class CloudSimProxy {
     }
 
     public long getArrivedJobsCount() {
-        return jobArrivalTimeMap.entrySet().parallelStream()
-                .filter(entry -> entry.getValue() <= clock()).count();
+        final double now = clock();
+        while (arrivedByClock < arrivalTimes.length && arrivalTimes[arrivedByClock] <= now) {
+            arrivedByClock++;
+        }
+        return arrivedByClock;
+    }
+
+    /**
+     * The number of events the simulation processed while the clock advanced in the last
+     * timestep.
+     */
+    public long getLastTimestepEvents() {
+        return lastTimestepEvents;
+    }
+
+    /**
+     * The jobs not submitted yet: not arrived, arrived and waiting, or rescheduled.
+     */
+    public int getJobQueueSize() {
+        return arrivals.length - nextArrival + arrivedJobs.size() + requeuedJobs.size();
+    }
+
+    public int getCostVmCount() {
+        return vmCost.getTrackedVmCount();
+    }
+
+    /**
+     * Counts the input jobs per status, indexed by {@link Cloudlet.Status#ordinal()}.
+     */
+    public int[] countJobsByStatus() {
+        final int[] counts = new int[Cloudlet.Status.values().length];
+        for (Cloudlet cloudlet : inputJobs) {
+            counts[cloudlet.getStatus().ordinal()]++;
+        }
+        return counts;
     }
 
     public List<Double> getFinishedJobsWaitTimeLastTimestep() {
         return jobsFinishedWaitTimeLastTimestep;
     }
 
+    /**
+     * Arrived jobs that are neither running nor finished. A job only starts after it arrived,
+     * so this is the arrived count minus the running and finished counts.
+     */
     public long getNotYetRunningJobsCount() {
-        return inputJobs.parallelStream()
-                .filter(cloudlet -> jobArrivalTimeMap.get(cloudlet.getId()) <= clock())
-                .filter(cloudlet -> !cloudlet.getStatus().equals(Cloudlet.Status.INEXEC))
-                .filter(cloudlet -> !cloudlet.getStatus().equals(Cloudlet.Status.SUCCESS)).count();
+        return getArrivedJobsCount() - runningJobs - finishedJobs;
     }
 
     public long getRunningJobsCount() {
-        return inputJobs.parallelStream()
-                .filter(cloudlet -> cloudlet.getStatus().equals(Cloudlet.Status.INEXEC)).count();
+        return runningJobs;
     }
 
     public long getFinishedJobsCount() {
-        return inputJobs.parallelStream()
-                .filter(cloudlet -> cloudlet.getStatus().equals(Cloudlet.Status.SUCCESS)).count();
+        return finishedJobs;
     }
 
     public double[] getVmMemoryUsage() {
@@ -774,6 +873,9 @@ public class CloudSimProxy {
     private void destroyVm(Vm vm) {
         final String vmSize = vm.getDescription();
 
+        // the running cloudlets stop running here and start again after the reschedule
+        runningJobs -= vm.getCloudletScheduler().getCloudletExecList().stream()
+                .filter(cle -> cle.getCloudlet().getStatus() == Cloudlet.Status.INEXEC).count();
         final List<Cloudlet> execCloudlets =
                 resetCloudlets(vm.getCloudletScheduler().getCloudletExecList());
         final List<Cloudlet> waitingCloudlets =
@@ -782,9 +884,10 @@ public class CloudSimProxy {
                 Stream.concat(execCloudlets.stream(), waitingCloudlets.stream())
                         .collect(Collectors.toList());
 
+        // removed before deallocating, so that the vm is not kept for the rest of its hour
+        vmCost.removeVm(vm);
         // this internally calls Host.destroyVm
         datacenter.getVmAllocationPolicy().deallocateHostForVm(vm);
-        vmCost.removeVmFromList(vm);
 
         // no need to clear it as it will be destroyed
         // vm.getCloudletScheduler().clear();
@@ -801,7 +904,7 @@ public class CloudSimProxy {
             cloudlet.setSubmissionDelay(0);
         });
 
-        jobQueue.addAll(affectedCloudlets);
+        requeuedJobs.addAll(affectedCloudlets);
     }
 
     public CloudSimPlus getSimulation() {
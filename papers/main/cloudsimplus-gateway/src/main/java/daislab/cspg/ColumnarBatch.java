@@ -0,0 +1,227 @@
+package daislab.cspg;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import daislab.cspg.grpc.ColumnarBatchStepResponse;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * Lays the step results of a batch out column by column, so that a vectorized client can wrap
+ * each column in one array view instead of walking one message per item. Numeric columns are
+ * little-endian packed arrays in item order; bitsets hold item i in bit (i % 8) of byte (i / 8).
+ * A missing result marks a failed item.
+ */
+class ColumnarBatch {
+
+    private final SimulationStepResult[] results;
+    private final Set<StepInfoField> infoFields;
+
+    ColumnarBatch(final int count, final Set<StepInfoField> infoFields) {
+        this.results = new SimulationStepResult[count];
+        this.infoFields = infoFields;
+    }
+
+    void set(final int index, final SimulationStepResult result) {
+        results[index] = result;
+    }
+
+    ColumnarBatchStepResponse build() {
+        final int count = results.length;
+        final ColumnarBatchStepResponse.Builder builder =
+                ColumnarBatchStepResponse.newBuilder().setCount(count);
+
+        final ByteBuffer rewards = doubles(count);
+        final byte[] terminated = bitset(count);
+        final byte[] truncated = bitset(count);
+        final byte[] failed = bitset(count);
+        final ByteBuffer offsets = ints(count + 1);
+        final ByteBuffer jobCoresWaiting = ints(count);
+        final ByteBuffer episodes = ints(count);
+        final byte[] reset = bitset(count);
+        final ByteBuffer resetOffsets = ints(count + 1);
+        final ByteBuffer resetJobCoresWaiting = ints(count);
+        int observationInts = 0;
+        int resetObservationInts = 0;
+        for (int i = 0; i < count; i++) {
+            final SimulationStepResult result = results[i];
+            offsets.putInt(observationInts);
+            resetOffsets.putInt(resetObservationInts);
+            if (result == null) {
+                // same convention as a failed batchStep item: flagged truncated
+                rewards.putDouble(0);
+                setBit(truncated, i);
+                setBit(failed, i);
+                jobCoresWaiting.putInt(0);
+                episodes.putInt(0);
+                resetJobCoresWaiting.putInt(0);
+                continue;
+            }
+            rewards.putDouble(result.getReward());
+            if (result.isTerminated()) {
+                setBit(terminated, i);
+            }
+            if (result.isTruncated()) {
+                setBit(truncated, i);
+            }
+            jobCoresWaiting.putInt(result.getObservation().getJobCoresWaitingObservation());
+            observationInts += result.getObservation().getInfrastructureObservation().length;
+            episodes.putInt(result.getEpisode());
+            if (result.getResetObservation() != null) {
+                setBit(reset, i);
+                resetObservationInts +=
+                        result.getResetObservation().getInfrastructureObservation().length;
+                resetJobCoresWaiting.putInt(
+                        result.getResetObservation().getJobCoresWaitingObservation());
+            } else {
+                resetJobCoresWaiting.putInt(0);
+            }
+        }
+        offsets.putInt(observationInts);
+        resetOffsets.putInt(resetObservationInts);
+
+        final ByteBuffer observations = ints(observationInts);
+        final IntBuffer observationView = observations.asIntBuffer();
+        for (SimulationStepResult result : results) {
+            if (result != null) {
+                observationView.put(result.getObservation().getInfrastructureObservation());
+            }
+        }
+        final ByteBuffer resetObservations = ints(resetObservationInts);
+        final IntBuffer resetObservationView = resetObservations.asIntBuffer();
+        for (SimulationStepResult result : results) {
+            if (result != null && result.getResetObservation() != null) {
+                resetObservationView.put(
+                        result.getResetObservation().getInfrastructureObservation());
+            }
+        }
+
+        builder.setRewards(wrap(rewards))
+                .setTerminated(wrap(terminated))
+                .setTruncated(wrap(truncated))
+                .setFailed(wrap(failed))
+                .setObservations(wrap(observations))
+                .setObservationOffsets(wrap(offsets))
+                .setJobCoresWaiting(wrap(jobCoresWaiting))
+                .setEpisodes(wrap(episodes))
+                .setReset(wrap(reset))
+                .setResetObservations(wrap(resetObservations))
+                .setResetObservationOffsets(wrap(resetOffsets))
+                .setResetJobCoresWaiting(wrap(resetJobCoresWaiting));
+        addInfoColumns(builder);
+        return builder.build();
+    }
+
+    private void addInfoColumns(final ColumnarBatchStepResponse.Builder builder) {
+        final int count = results.length;
+        if (infoFields.contains(StepInfoField.JOB_WAIT_REWARD)) {
+            final ByteBuffer column = doubles(count);
+            for (SimulationStepResult result : results) {
+                column.putDouble(result == null ? 0 : result.getInfo().getJobWaitReward());
+            }
+            builder.setJobWaitReward(wrap(column));
+        }
+        if (infoFields.contains(StepInfoField.RUNNING_VM_CORES_REWARD)) {
+            final ByteBuffer column = doubles(count);
+            for (SimulationStepResult result : results) {
+                column.putDouble(
+                        result == null ? 0 : result.getInfo().getRunningVmCoresReward());
+            }
+            builder.setRunningVmCoresReward(wrap(column));
+        }
+        if (infoFields.contains(StepInfoField.UNUTILIZED_VM_CORES_REWARD)) {
+            final ByteBuffer column = doubles(count);
+            for (SimulationStepResult result : results) {
+                column.putDouble(
+                        result == null ? 0 : result.getInfo().getUnutilizedVmCoresReward());
+            }
+            builder.setUnutilizedVmCoresReward(wrap(column));
+        }
+        if (infoFields.contains(StepInfoField.INVALID_REWARD)) {
+            final ByteBuffer column = doubles(count);
+            for (SimulationStepResult result : results) {
+                column.putDouble(result == null ? 0 : result.getInfo().getInvalidReward());
+            }
+            builder.setInvalidReward(wrap(column));
+        }
+        if (infoFields.contains(StepInfoField.IS_VALID)) {
+            final byte[] column = bitset(count);
+            for (int i = 0; i < count; i++) {
+                if (results[i] != null && results[i].getInfo().isValid()) {
+                    setBit(column, i);
+                }
+            }
+            builder.setIsValid(wrap(column));
+        }
+        if (infoFields.contains(StepInfoField.UNUTILIZED_VM_CORE_RATIO)) {
+            final ByteBuffer column = doubles(count);
+            for (SimulationStepResult result : results) {
+                column.putDouble(
+                        result == null ? 0 : result.getInfo().getUnutilizedVmCoreRatio());
+            }
+            builder.setUnutilizedVmCoreRatio(wrap(column));
+        }
+        if (infoFields.contains(StepInfoField.HOST_AFFECTED)) {
+            final ByteBuffer column = ints(count);
+            for (SimulationStepResult result : results) {
+                column.putInt(result == null ? 0 : result.getInfo().getHostAffected());
+            }
+            builder.setHostAffected(wrap(column));
+        }
+        if (infoFields.contains(StepInfoField.CORES_CHANGED)) {
+            final ByteBuffer column = ints(count);
+            for (SimulationStepResult result : results) {
+                column.putInt(result == null ? 0 : result.getInfo().getCoresChanged());
+            }
+            builder.setCoresChanged(wrap(column));
+        }
+        if (infoFields.contains(StepInfoField.JOB_WAIT_TIME)) {
+            final ByteBuffer offsets = ints(count + 1);
+            int total = 0;
+            for (SimulationStepResult result : results) {
+                offsets.putInt(total);
+                total += result == null ? 0 : result.getInfo().getJobWaitTime().size();
+            }
+            offsets.putInt(total);
+            final ByteBuffer column = doubles(total);
+            for (SimulationStepResult result : results) {
+                if (result == null) {
+                    continue;
+                }
+                final List<Double> jobWaitTime = result.getInfo().getJobWaitTime();
+                for (int i = 0; i < jobWaitTime.size(); i++) {
+                    column.putDouble(jobWaitTime.get(i));
+                }
+            }
+            builder.setJobWaitTime(wrap(column)).setJobWaitTimeOffsets(wrap(offsets));
+        }
+    }
+
+    private static ByteBuffer doubles(final int count) {
+        return ByteBuffer.allocate(count * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer ints(final int count) {
+        return ByteBuffer.allocate(count * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static byte[] bitset(final int count) {
+        return new byte[(count + 7) / 8];
+    }
+
+    private static void setBit(final byte[] bitset, final int index) {
+        bitset[index >>> 3] |= (byte) (1 << (index & 7));
+    }
+
+    private static ByteString wrap(final ByteBuffer buffer) {
+        return UnsafeByteOperations.unsafeWrap(buffer.array());
+    }
+
+    private static ByteString wrap(final byte[] bytes) {
+        return UnsafeByteOperations.unsafeWrap(bytes);
+    }
+}
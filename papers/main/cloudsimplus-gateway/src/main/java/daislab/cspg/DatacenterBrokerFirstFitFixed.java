@@ -17,14 +17,22 @@ public class DatacenterBrokerFirstFitFixed extends DatacenterBrokerSimple {
      */
     private int lastVmIndex;
 
+    /**
+     * The ledger told about the VMs whose expected free PEs change.
+     */
+    private final VmCapacityLedger capacity;
+
     /**
      * Creates a DatacenterBroker object.
      *
      * @param simulation The CloudSim instance that represents the simulation the Entity is related
      *        to
+     * @param capacity the ledger to tell when a cloudlet is mapped to a VM or returned from it
      */
-    public DatacenterBrokerFirstFitFixed(final CloudSimPlus simulation) {
+    public DatacenterBrokerFirstFitFixed(final CloudSimPlus simulation,
+            final VmCapacityLedger capacity) {
         super(simulation);
+        this.capacity = capacity;
     }
 
     @Override
@@ -42,6 +50,8 @@ public class DatacenterBrokerFirstFitFixed extends DatacenterBrokerSimple {
         if (evt.getTag() == CloudSimTag.CLOUDLET_RETURN) {
             final Cloudlet cloudlet = (Cloudlet) evt.getData();
             final Vm vm = cloudlet.getVm();
+            // the expected free PEs of the VM were given back by super.processEvent
+            capacity.expectedFreePesChanged(vm);
             LOGGER.debug("Cloudlet {} in VM {} returned. Scheduling more cloudlets...",
                     cloudlet.getId(), vm.getId());
             requestDatacentersToCreateWaitingCloudlets();
@@ -70,7 +80,12 @@ public class DatacenterBrokerFirstFitFixed extends DatacenterBrokerSimple {
          * vm.
          */
 
+        /*
+         * The broker takes the PEs of the cloudlet from the expected free PEs of the returned VM
+         * right after this method returns, so the ledger is only told that they change.
+         */
         if (cloudlet.isBoundToVm()) {
+            capacity.expectedFreePesChanged(cloudlet.getVm());
             return cloudlet.getVm();
         }
 
@@ -101,6 +116,7 @@ public class DatacenterBrokerFirstFitFixed extends DatacenterBrokerSimple {
                 LOGGER.trace("{}: {}: {} (PEs: {}) mapped to {} (available PEs: {}, tot PEs: {})",
                         getSimulation().clockStr(), getName(), cloudlet, cloudlet.getPesNumber(),
                         vm, vm.getExpectedFreePesNumber(), vm.getFreePesNumber());
+                capacity.expectedFreePesChanged(vm);
                 return vm;
             }
 
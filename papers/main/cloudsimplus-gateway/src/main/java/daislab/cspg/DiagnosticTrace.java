@@ -0,0 +1,162 @@
+package daislab.cspg;
+
+import org.cloudsimplus.cloudlets.Cloudlet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A per-step CSV trace of the data structures that grow while an episode runs, written when a
+ * simulation has diagnostics_dir set. Traces are only written below the diagnostics directory
+ * of the server (the diagnostics.dir system property); see {@link #resolveDirectory}.
+ * <p>
+ * Every row holds the episode, step, simulation clock and wall time of the step next to the
+ * events processed in the step, the length of the future event queue, the sizes of the
+ * broker's finished and created cloudlet lists, the job queue and the VMs in the cost ledger,
+ * and how many input jobs are in each {@link Cloudlet.Status}. Rows are buffered and written
+ * out every {@value #FLUSH_ROWS} steps, at the end of an episode and on close.
+ * </p>
+ */
+public class DiagnosticTrace {
+
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(DiagnosticTrace.class.getSimpleName());
+
+    private static final int FLUSH_ROWS = 256;
+
+    private final Path path;
+    private final StringBuilder rows = new StringBuilder();
+    private int bufferedRows;
+    private boolean failed;
+
+    /**
+     * Opens (or appends to) {@code <directory>/<identifier>.diag.csv}, where directory is
+     * diagnosticsDir resolved by {@link #resolveDirectory}.
+     */
+    public static DiagnosticTrace open(final String diagnosticsDir, final String identifier) {
+        final Path directory;
+        try {
+            directory = resolveDirectory(diagnosticsDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create diagnostics directory", e);
+        }
+        return new DiagnosticTrace(directory, identifier);
+    }
+
+    private DiagnosticTrace(final Path directory, final String identifier) {
+        this.path = directory.resolve(identifier + ".diag.csv");
+        try {
+            if (!Files.exists(path) || Files.size(path) == 0) {
+                Files.writeString(path, header(), StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create diagnostic trace " + path, e);
+        }
+        LOGGER.info("Writing diagnostic trace to {}", path);
+    }
+
+    /**
+     * Resolves the diagnostics_dir of a simulation against the diagnostics directory of the
+     * server (the diagnostics.dir system property) and creates it. A name that leads out of the
+     * directory, through ".." or a symbolic link, is rejected before anything is created, so
+     * that a client cannot make the server write files elsewhere.
+     *
+     * @throws IllegalStateException    if no diagnostics directory is configured
+     * @throws IllegalArgumentException if the name is rejected
+     */
+    public static Path resolveDirectory(final String name) throws IOException {
+        final String diagnosticsDir = System.getProperty("diagnostics.dir", "");
+        if (diagnosticsDir.isEmpty()) {
+            throw new IllegalStateException(
+                    "Diagnostic traces need a diagnostics directory (-Ddiagnostics.dir)");
+        }
+        final Path dir = Path.of(diagnosticsDir).toRealPath();
+        final Path resolved;
+        try {
+            resolved = dir.resolve(name).normalize();
+        } catch (InvalidPathException e) {
+            throw rejectedDirectory(name);
+        }
+        if (!resolved.startsWith(dir)) {
+            throw rejectedDirectory(name);
+        }
+        // a symbolic link below dir may still point out of it: check the part that exists
+        // before creating the rest, and the whole directory once it is created
+        Path existing = resolved;
+        while (!Files.exists(existing)) {
+            existing = existing.getParent();
+        }
+        if (!existing.toRealPath().startsWith(dir)) {
+            throw rejectedDirectory(name);
+        }
+        Files.createDirectories(resolved);
+        final Path directory = resolved.toRealPath();
+        if (!directory.startsWith(dir)) {
+            throw rejectedDirectory(name);
+        }
+        return directory;
+    }
+
+    private static IllegalArgumentException rejectedDirectory(final String name) {
+        return new IllegalArgumentException(
+                "Not a directory in the diagnostics directory: " + name);
+    }
+
+    private static String header() {
+        StringBuilder header = new StringBuilder("episode,step,clock,step_nanos,events,"
+                + "future_events,finished_list,created_list,job_queue,cost_vms");
+        for (Cloudlet.Status status : Cloudlet.Status.values()) {
+            header.append(",status_").append(status.name().toLowerCase());
+        }
+        return header.append('\n').toString();
+    }
+
+    public void record(final int episode, final int step, final long stepNanos,
+            final boolean episodeEnded, final CloudSimProxy proxy) {
+        if (failed) {
+            return;
+        }
+        rows.append(episode).append(',')
+                .append(step).append(',')
+                .append(proxy.clock()).append(',')
+                .append(stepNanos).append(',')
+                .append(proxy.getLastTimestepEvents()).append(',')
+                .append(proxy.getNumberOfFutureEvents()).append(',')
+                .append(proxy.getBroker().getCloudletFinishedList().size()).append(',')
+                .append(proxy.getBroker().getCloudletCreatedList().size()).append(',')
+                .append(proxy.getJobQueueSize()).append(',')
+                .append(proxy.getCostVmCount());
+        for (int count : proxy.countJobsByStatus()) {
+            rows.append(',').append(count);
+        }
+        rows.append('\n');
+        if (++bufferedRows >= FLUSH_ROWS || episodeEnded) {
+            flush();
+        }
+    }
+
+    public void flush() {
+        if (bufferedRows == 0 || failed) {
+            return;
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.append(rows);
+        } catch (IOException e) {
+            // a diagnostic must not take the simulation down
+            LOGGER.error("Could not write diagnostic trace {}, disabling it: {}", path,
+                    e.getMessage());
+            failed = true;
+        }
+        rows.setLength(0);
+        bufferedRows = 0;
+    }
+}
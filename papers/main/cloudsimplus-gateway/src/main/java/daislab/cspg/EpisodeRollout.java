@@ -0,0 +1,79 @@
+package daislab.cspg;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * Drives a rule-based simulation through a whole episode without a client in the loop and
+ * accumulates the summary statistics on the way. The steps are run in chunks, each chunk on the
+ * simulation's pinned thread, so the episode can be streamed and other calls interleave.
+ */
+@Getter
+public class EpisodeRollout {
+
+    // what the summary needs; the tree array and the action echo are left out
+    static final Set<StepInfoField> INFO_FIELDS = EnumSet.of(StepInfoField.JOB_WAIT_REWARD,
+            StepInfoField.RUNNING_VM_CORES_REWARD, StepInfoField.UNUTILIZED_VM_CORES_REWARD,
+            StepInfoField.INVALID_REWARD, StepInfoField.JOB_WAIT_TIME,
+            StepInfoField.UNUTILIZED_VM_CORE_RATIO);
+
+    // the rule-based policy ignores the action
+    private static final int[] NO_ACTION = {0, 0, 0, 0};
+
+    private int steps;
+    private double totalReward;
+    private double jobWaitRewardSum;
+    private double runningVmCoresRewardSum;
+    private double unutilizedVmCoresRewardSum;
+    private double invalidRewardSum;
+    private double unutilizedVmCoreRatioSum;
+    private int finishedJobs;
+    private double jobWaitTimeSum;
+    private double maxJobWaitTime;
+    private boolean terminated;
+    private boolean truncated;
+
+    public boolean isDone() {
+        return terminated || truncated;
+    }
+
+    /**
+     * Runs up to maxSteps steps, stopping early when the episode ends.
+     *
+     * @return the reward of every step that was run
+     */
+    public double[] runSteps(final WrappedSimulation simulation, final int maxSteps) {
+        final double[] rewards = new double[maxSteps];
+        int count = 0;
+        while (count < maxSteps && !isDone()) {
+            final SimulationStepResult result = simulation.step(NO_ACTION, INFO_FIELDS);
+            rewards[count++] = result.getReward();
+            add(result);
+        }
+        return count == maxSteps ? rewards : Arrays.copyOf(rewards, count);
+    }
+
+    private void add(final SimulationStepResult result) {
+        final SimulationStepInfo info = result.getInfo();
+        steps++;
+        totalReward += result.getReward();
+        jobWaitRewardSum += info.getJobWaitReward();
+        runningVmCoresRewardSum += info.getRunningVmCoresReward();
+        unutilizedVmCoresRewardSum += info.getUnutilizedVmCoresReward();
+        invalidRewardSum += info.getInvalidReward();
+        unutilizedVmCoreRatioSum += info.getUnutilizedVmCoreRatio();
+        final List<Double> jobWaitTime = info.getJobWaitTime();
+        for (int i = 0; i < jobWaitTime.size(); i++) {
+            final double waitTime = jobWaitTime.get(i);
+            jobWaitTimeSum += waitTime;
+            maxJobWaitTime = Math.max(maxJobWaitTime, waitTime);
+        }
+        finishedJobs += jobWaitTime.size();
+        terminated = result.isTerminated();
+        truncated = result.isTruncated();
+    }
+}
@@ -2,18 +2,37 @@ package daislab.cspg;
 
 import io.grpc.Server;
 import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.Epoll;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.unix.DomainSocketAddress;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Bootstrap class for the CloudSim gRPC server.
  * Spawns a JVM that runs the CloudSim simulations, accessed remotely via gRPC.
+ * One server hosts any number of simulations; all of them are served by the
+ * same service instance, whichever port the worker connects to.
  *
- * Usage: java daislab.cspg.GrpcServer <port>
- *   port  - TCP port to listen on (default: 50051)
+ * Usage: java daislab.cspg.GrpcServer <ports>
+ *   ports - TCP port(s) to listen on: a single port, a range (50051-50066)
+ *           or a comma-separated list (default: 50051)
+ *
+ * When every client runs on the same host, the server can instead listen on a
+ * Unix domain socket through Netty's native epoll transport (Linux only), which
+ * skips the loopback TCP stack on every call. Clients connect to
+ * "unix:///path/to/socket".
  */
 public class GrpcServer {
 
@@ -22,24 +41,111 @@ public class GrpcServer {
 
     private final Server server;
     private final CloudSimGrpcService service;
+    // only set for the domain socket transport, which owns its event loops
+    private final EventLoopGroup bossGroup;
+    private final EventLoopGroup workerGroup;
+    private final Path socketPath;
+    private MetricsHttpServer metricsServer;
 
     public GrpcServer(int port) {
+        this(List.of(port));
+    }
+
+    public GrpcServer(List<Integer> ports) {
+        if (ports.isEmpty()) {
+            throw new IllegalArgumentException("At least one port is required");
+        }
+        service = new CloudSimGrpcService();
+        NettyServerBuilder builder = NettyServerBuilder.forPort(ports.get(0));
+        for (int port : ports.subList(1, ports.size())) {
+            builder.addListenAddress(new InetSocketAddress(port));
+        }
+        server = builder
+                .addService(service)
+                .build();
+        bossGroup = null;
+        workerGroup = null;
+        socketPath = null;
+    }
+
+    /**
+     * Creates a server listening on a Unix domain socket with the native epoll transport.
+     *
+     * @param socketPath    path of the socket file; a stale file left by a previous run is removed
+     * @param bossThreads   event-loop threads accepting connections
+     * @param workerThreads event-loop threads serving calls (0 lets Netty pick 2 * cores)
+     * @throws IllegalStateException if the native epoll transport is not available
+     */
+    public GrpcServer(Path socketPath, int bossThreads, int workerThreads) {
+        if (!Epoll.isAvailable()) {
+            throw new IllegalStateException(
+                    "Native epoll transport is not available: " + Epoll.unavailabilityCause());
+        }
+        try {
+            Files.deleteIfExists(socketPath);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot remove stale socket " + socketPath, e);
+        }
         service = new CloudSimGrpcService();
+        this.socketPath = socketPath;
+        bossGroup = new EpollEventLoopGroup(bossThreads);
+        workerGroup = new EpollEventLoopGroup(workerThreads);
         server = NettyServerBuilder
-                .forPort(port)
+                .forAddress(new DomainSocketAddress(socketPath.toString()))
+                .channelType(EpollServerDomainSocketChannel.class)
+                .bossEventLoopGroup(bossGroup)
+                .workerEventLoopGroup(workerGroup)
                 .addService(service)
                 .build();
     }
 
+    /**
+     * Parses a port specification: a single port ("50051"), an inclusive range
+     * ("50051-50066") or a comma-separated list of both ("50051,50060-50062").
+     */
+    static List<Integer> parsePorts(String spec) {
+        List<Integer> ports = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String trimmed = part.trim();
+            int dash = trimmed.indexOf('-');
+            if (dash > 0) {
+                int first = Integer.parseInt(trimmed.substring(0, dash).trim());
+                int last = Integer.parseInt(trimmed.substring(dash + 1).trim());
+                for (int port = first; port <= last; port++) {
+                    ports.add(port);
+                }
+            } else {
+                ports.add(Integer.parseInt(trimmed));
+            }
+        }
+        return ports;
+    }
+
     public void start() throws IOException {
         server.start();
-        LOGGER.info("CloudSim gRPC server started on port {}", server.getPort());
+        LOGGER.info("CloudSim gRPC server started on {}", server.getListenSockets());
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             LOGGER.info("Shutdown hook triggered");
             GrpcServer.this.stop();
         }));
     }
 
+    /**
+     * Starts the Prometheus metrics endpoint on the given port of the loopback address.
+     */
+    public void startMetrics(int port) throws IOException {
+        startMetrics(InetAddress.getLoopbackAddress(), port);
+    }
+
+    /**
+     * Starts the Prometheus metrics endpoint on the given address and port.
+     */
+    public void startMetrics(InetAddress host, int port) throws IOException {
+        metricsServer = new MetricsHttpServer(new InetSocketAddress(host, port),
+                service::getSimulations);
+        metricsServer.start();
+    }
+
     public void blockUntilShutdown() throws InterruptedException {
         if (server != null) {
             server.awaitTermination();
@@ -57,6 +163,19 @@ public class GrpcServer {
                 server.shutdownNow();
                 Thread.currentThread().interrupt();
             }
+            service.shutdown();
+            if (metricsServer != null) {
+                metricsServer.stop();
+            }
+            if (bossGroup != null) {
+                bossGroup.shutdownGracefully();
+                workerGroup.shutdownGracefully();
+                try {
+                    Files.deleteIfExists(socketPath);
+                } catch (IOException e) {
+                    LOGGER.warn("Could not remove socket {}: {}", socketPath, e.getMessage());
+                }
+            }
             LOGGER.info("CloudSim gRPC server stopped");
         }
     }
@@ -66,16 +185,16 @@ public class GrpcServer {
     }
 
     public static void main(String[] args) throws Exception {
-        int port = 50051;
+        List<Integer> ports = List.of(50051);
         if (args.length > 0) {
             try {
-                port = Integer.parseInt(args[0]);
+                ports = parsePorts(args[0]);
             } catch (NumberFormatException e) {
                 LOGGER.warn("Invalid port '{}', using default 50051", args[0]);
             }
         }
 
-        final GrpcServer grpcServer = new GrpcServer(port);
+        final GrpcServer grpcServer = new GrpcServer(ports);
         grpcServer.start();
 
         // Wait for shutdown signal
@@ -0,0 +1,104 @@
+package daislab.cspg;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size latency histogram in the style of HdrHistogram.
+ * <p>
+ * Values are nanoseconds. Every power of two is split into {@value #SUB_BUCKETS} linear
+ * buckets, so a recorded value is known to within 12.5% while the whole range of a long fits
+ * in under 500 counters. Recording is a few atomic adds and allocates nothing, so it can stay
+ * on in the step path; readers on other threads may see a snapshot that is off by the values
+ * being recorded at that moment.
+ * </p>
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // values below 2 * SUB_BUCKETS get a bucket of their own
+    private static final int LINEAR_BUCKETS = 2 * SUB_BUCKETS;
+    private static final int BUCKETS =
+            LINEAR_BUCKETS + (Long.SIZE - 1 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(final long nanos) {
+        final long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Records the time elapsed since startNanos, as returned by
+     * {@link TimeMeasurement#startTiming()}.
+     */
+    public void recordSince(final long startNanos) {
+        record(TimeMeasurement.calculateElapsedTime(startNanos));
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getSum() {
+        return sum.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        final long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    /**
+     * The smallest recorded value that percentile percent of all values are at or below, as the
+     * upper end of its bucket (never above the maximum).
+     *
+     * @param percentile between 0 and 100
+     */
+    public long getValueAtPercentile(final double percentile) {
+        final long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    static int bucketOf(final long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        // value has at least SUB_BUCKET_BITS + 2 significant bits; keep the top SUB_BUCKET_BITS
+        // after the leading one
+        final int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - 1 - SUB_BUCKET_BITS;
+        final int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBoundOf(final int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        final int shift = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        final long mantissa = SUB_BUCKETS + (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -6,46 +6,137 @@ import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.joran.JoranConfigurator;
 
 import java.io.IOException;
+import java.net.InetAddress;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
 
 /**
  * CloudSim gRPC Server bootstrap.
  * Starts a Java JVM that runs CloudSim simulations, accessed remotely via gRPC.
  *
- * Usage: java daislab.cspg.Main --grpc <port>
- *   port  - TCP port to listen on (default: 50051)
+ * Usage: java daislab.cspg.Main --grpc <ports>
+ *        java daislab.cspg.Main --uds <path> [--boss-threads <n>] [--worker-threads <n>]
+ *        optionally followed by --metrics-port <port> [--metrics-host <host>]
+ *   ports - TCP port(s) to listen on: a single port, a range (50051-50066)
+ *           or a comma-separated list (default: 50051). A single JVM hosts
+ *           all simulations, whichever of its ports a worker connects to.
+ *   path  - Unix domain socket to listen on instead of TCP, served by the
+ *           native epoll transport (Linux only)
+ *   --boss-threads   - epoll threads accepting connections, --uds only (default: 1)
+ *   --worker-threads - epoll threads serving calls, --uds only (default: 0, i.e. 2 * cores)
+ *   --metrics-port   - serve Prometheus metrics on http://<host>:<port>/metrics (default: off)
+ *   --metrics-host   - address the metrics endpoint listens on, e.g. 0.0.0.0 to be scraped
+ *                      from other hosts (default: the loopback address)
  *
  * System properties:
  *   experiment.id     - experiment identifier used to create a per-experiment log directory
  *   log.level        - logging level (default: INFO)
  *   log.destination  - stdout, file, stdout-file, or none (default: stdout)
  *   log.simDir       - directory for csp.current.log (default: logs/)
+ *   simulations.max  - maximum number of simulations open at once (default: 64). Each
+ *                      simulation is pinned to its own thread, because CloudSim Plus is not
+ *                      thread-safe, so this also bounds the simulation threads of the JVM;
+ *                      createSimulation fails with RESOURCE_EXHAUSTED beyond it
+ *   trace.registry.capacity - registered traces kept while no simulation uses them (default: 8)
+ *   replay.dir       - directory replayActions may read action files from (default: none,
+ *                      replaying from a file is refused)
+ *   diagnostics.dir  - directory the diagnostics_dir of a simulation is resolved in and
+ *                      confined to (default: none, simulations asking for a diagnostic
+ *                      trace are refused)
+ *   jfr.recording    - file to write a flight recording to, with the simulation phase events
+ *                      enabled (default: none)
  */
 public class Main {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Main.class.getSimpleName());
 
     public static void main(String[] args) throws Exception {
-        int port = 50051;
-        if (args.length > 1 && "--grpc".equals(args[0])) {
-            port = Integer.parseInt(args[1]);
+        List<Integer> ports = List.of(50051);
+        String socketPath = null;
+        int bossThreads = 1;
+        int workerThreads = 0;
+        int metricsPort = 0;
+        InetAddress metricsHost = InetAddress.getLoopbackAddress();
+        boolean threadsGiven = false;
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for option: " + args[i]);
+            }
+            switch (args[i]) {
+                case "--grpc" -> ports = GrpcServer.parsePorts(args[i + 1]);
+                case "--uds" -> socketPath = args[i + 1];
+                case "--boss-threads" -> {
+                    bossThreads = Integer.parseInt(args[i + 1]);
+                    threadsGiven = true;
+                }
+                case "--worker-threads" -> {
+                    workerThreads = Integer.parseInt(args[i + 1]);
+                    threadsGiven = true;
+                }
+                case "--metrics-port" -> metricsPort = Integer.parseInt(args[i + 1]);
+                case "--metrics-host" -> metricsHost = InetAddress.getByName(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (threadsGiven && socketPath == null) {
+            // the TCP server uses the default gRPC event loops, which these do not size
+            throw new IllegalArgumentException(
+                    "--boss-threads and --worker-threads are only valid with --uds");
         }
 
         configureLogging();
+        Recording recording = startRecording(System.getProperty("jfr.recording", ""));
 
-        LOGGER.info("Starting CloudSim gRPC server on port {}", port);
-        GrpcServer grpcServer = new GrpcServer(port);
+        GrpcServer grpcServer;
+        if (socketPath != null) {
+            LOGGER.info("Starting CloudSim gRPC server on unix socket {} (boss={}, workers={})",
+                    socketPath, bossThreads, workerThreads);
+            grpcServer = new GrpcServer(Path.of(socketPath), bossThreads, workerThreads);
+        } else {
+            LOGGER.info("Starting CloudSim gRPC server on port(s) {}", ports);
+            grpcServer = new GrpcServer(ports);
+        }
         grpcServer.start();
+        if (metricsPort > 0) {
+            grpcServer.startMetrics(metricsHost, metricsPort);
+        }
 
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             LOGGER.info("Shutdown hook triggered");
             grpcServer.stop();
+            if (recording != null) {
+                recording.stop();
+                LOGGER.info("Flight recording written to {}", recording.getDestination());
+            }
         }));
 
         grpcServer.blockUntilShutdown();
     }
 
+    /**
+     * Starts a flight recording with the JDK's profile settings plus the simulation phase
+     * events, dumped to the given file when it stops.
+     */
+    private static Recording startRecording(String destination) throws Exception {
+        if (destination.isEmpty()) {
+            return null;
+        }
+        Recording recording = new Recording(Configuration.getConfiguration("profile"));
+        for (Class<? extends Event> type : SimulationEvents.TYPES) {
+            recording.enable(type);
+        }
+        recording.setName("cspg");
+        recording.setToDisk(true);
+        recording.setDestination(Path.of(destination));
+        recording.start();
+        LOGGER.info("Flight recording started, writing to {}", destination);
+        return recording;
+    }
+
     private static void configureLogging() throws Exception {
         String logLevel = System.getProperty("log.level", "INFO");
         String logDestination = System.getProperty("log.destination", "stdout");
@@ -0,0 +1,177 @@
+package daislab.cspg;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Serves the gateway's metrics in the Prometheus text format on {@code GET /metrics}.
+ * <p>
+ * A scrape only reads what the simulations already publish for other threads (the atomic
+ * latency histograms, the mailbox counters and a volatile snapshot of the future event queue
+ * length), so it never queues work on a simulation thread or takes a lock on the step path.
+ * Steps and resets are exposed as counters; their per-second rates are left to the scraper.
+ * </p>
+ */
+public class MetricsHttpServer {
+
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(MetricsHttpServer.class.getSimpleName());
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Supplier<Collection<SimulationExecutor>> simulations;
+
+    /**
+     * @param address     address to listen on; use the loopback address unless the metrics are
+     *                    meant to be scraped from other hosts
+     * @param simulations the simulations to report on, read at every scrape
+     */
+    public MetricsHttpServer(final InetSocketAddress address,
+            final Supplier<Collection<SimulationExecutor>> simulations) throws IOException {
+        this.simulations = simulations;
+        this.server = HttpServer.create(address, 0);
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/metrics", this::handle);
+    }
+
+    public void start() {
+        server.start();
+        LOGGER.info("Metrics endpoint listening on http://{}:{}/metrics",
+                server.getAddress().getHostString(), server.getAddress().getPort());
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            final byte[] body = render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    String render() {
+        final StringBuilder text = new StringBuilder(4096);
+        final Collection<SimulationExecutor> current = simulations.get();
+
+        header(text, "cspg_active_simulations", "gauge", "Simulations currently hosted");
+        text.append("cspg_active_simulations ").append(current.size()).append('\n');
+
+        header(text, "cspg_steps_total", "counter", "Steps run per simulation");
+        for (SimulationExecutor sim : current) {
+            sample(text, "cspg_steps_total", sim, count(sim, StepMetrics.Phase.STEP));
+        }
+        header(text, "cspg_resets_total", "counter", "Resets run per simulation");
+        for (SimulationExecutor sim : current) {
+            sample(text, "cspg_resets_total", sim, count(sim, StepMetrics.Phase.RESET));
+        }
+        header(text, "cspg_future_events", "gauge",
+                "Future event queue length, counted once per scrape interval");
+        for (SimulationExecutor sim : current) {
+            sample(text, "cspg_future_events", sim, sim.getFutureEvents());
+        }
+        header(text, "cspg_mailbox_depth", "gauge", "Calls queued or running per simulation");
+        for (SimulationExecutor sim : current) {
+            sample(text, "cspg_mailbox_depth", sim, sim.getMailboxDepth());
+        }
+
+        header(text, "cspg_phase_latency_seconds", "summary",
+                "Latency of the phases of a call, from bucketed histograms");
+        for (SimulationExecutor sim : current) {
+            for (StepMetrics.Phase phase : StepMetrics.Phase.values()) {
+                appendSummary(text, sim, phase, sim.getMetrics().get(phase));
+            }
+        }
+
+        appendJvm(text);
+        return text.toString();
+    }
+
+    private static void appendSummary(final StringBuilder text, final SimulationExecutor sim,
+            final StepMetrics.Phase phase, final LatencyHistogram histogram) {
+        final String labels = "sim_id=\"" + sim.getIdentifier() + "\",phase=\""
+                + phase.name().toLowerCase() + "\"";
+        for (double quantile : QUANTILES) {
+            text.append("cspg_phase_latency_seconds{").append(labels)
+                    .append(",quantile=\"").append(quantile).append("\"} ")
+                    .append(histogram.getValueAtPercentile(quantile * 100) / NANOS_PER_SECOND)
+                    .append('\n');
+        }
+        text.append("cspg_phase_latency_seconds_sum{").append(labels).append("} ")
+                .append(histogram.getSum() / NANOS_PER_SECOND).append('\n');
+        text.append("cspg_phase_latency_seconds_count{").append(labels).append("} ")
+                .append(histogram.getCount()).append('\n');
+    }
+
+    private static void appendJvm(final StringBuilder text) {
+        final MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        header(text, "cspg_jvm_heap_used_bytes", "gauge", "Heap in use");
+        text.append("cspg_jvm_heap_used_bytes ").append(heap.getUsed()).append('\n');
+        header(text, "cspg_jvm_heap_committed_bytes", "gauge", "Heap committed");
+        text.append("cspg_jvm_heap_committed_bytes ").append(heap.getCommitted()).append('\n');
+
+        final Collection<GarbageCollectorMXBean> collectors =
+                ManagementFactory.getGarbageCollectorMXBeans();
+        header(text, "cspg_jvm_gc_collections_total", "counter", "Collections per collector");
+        for (GarbageCollectorMXBean gc : collectors) {
+            text.append("cspg_jvm_gc_collections_total{gc=\"").append(gc.getName()).append("\"} ")
+                    .append(Math.max(0, gc.getCollectionCount())).append('\n');
+        }
+        header(text, "cspg_jvm_gc_time_seconds_total", "counter",
+                "Accumulated collection time per collector");
+        for (GarbageCollectorMXBean gc : collectors) {
+            text.append("cspg_jvm_gc_time_seconds_total{gc=\"").append(gc.getName())
+                    .append("\"} ").append(Math.max(0, gc.getCollectionTime()) / 1000.0)
+                    .append('\n');
+        }
+    }
+
+    private static long count(final SimulationExecutor sim, final StepMetrics.Phase phase) {
+        return sim.getMetrics().get(phase).getCount();
+    }
+
+    private static void header(final StringBuilder text, final String name, final String type,
+            final String help) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(final StringBuilder text, final String name,
+            final SimulationExecutor sim, final long value) {
+        text.append(name).append("{sim_id=\"").append(sim.getIdentifier()).append("\"} ")
+                .append(value).append('\n');
+    }
+}
@@ -0,0 +1,121 @@
+package daislab.cspg;
+
+import lombok.Value;
+
+import java.util.Arrays;
+
+/*
+ * Keeps the last infrastructure observation sent for one simulation and encodes the next one as
+ * a patch of changed index ranges. A keyframe (the whole array as a single range) is produced
+ * after a reset, every keyframeInterval observations, on request, or whenever the patch would
+ * not be smaller than the full array.
+ *
+ * Not thread-safe: it must only be used from the thread the simulation is pinned to.
+ */
+public class ObservationDeltaEncoder {
+
+    // unchanged runs this short are folded into the surrounding ranges, since starting a new
+    // range costs two ints (start and length)
+    private static final int MAX_MERGED_GAP = 2;
+
+    private final int keyframeInterval;
+    private int[] lastSent;
+    private int sinceKeyframe;
+
+    public ObservationDeltaEncoder(final int keyframeInterval) {
+        this.keyframeInterval = keyframeInterval;
+        reset();
+    }
+
+    public void reset() {
+        lastSent = null;
+        sinceKeyframe = 0;
+    }
+
+    public Delta encode(final int[] current, final boolean forceKeyframe) {
+        if (lastSent == null || forceKeyframe || ++sinceKeyframe >= keyframeInterval) {
+            return keyframe(current);
+        }
+
+        final int common = Math.min(lastSent.length, current.length);
+        int[] starts = new int[8];
+        int[] lengths = new int[8];
+        int ranges = 0;
+        int changedValues = 0;
+        int i = 0;
+        while (i < common) {
+            if (lastSent[i] == current[i]) {
+                i++;
+                continue;
+            }
+            int end = i + 1;
+            int gap = 0;
+            while (end + gap < common && gap <= MAX_MERGED_GAP) {
+                if (lastSent[end + gap] != current[end + gap]) {
+                    end += gap + 1;
+                    gap = 0;
+                } else {
+                    gap++;
+                }
+            }
+            if (ranges == starts.length) {
+                starts = Arrays.copyOf(starts, ranges * 2);
+                lengths = Arrays.copyOf(lengths, ranges * 2);
+            }
+            // a change that reaches the shared prefix end is extended over the grown tail
+            if (end == common && current.length > common) {
+                end = current.length;
+            }
+            starts[ranges] = i;
+            lengths[ranges] = end - i;
+            changedValues += end - i;
+            ranges++;
+            i = end;
+        }
+        if (i < current.length) {
+            // the array grew and the tail was not covered by the last range
+            if (ranges == starts.length) {
+                starts = Arrays.copyOf(starts, ranges + 1);
+                lengths = Arrays.copyOf(lengths, ranges + 1);
+            }
+            starts[ranges] = i;
+            lengths[ranges] = current.length - i;
+            changedValues += current.length - i;
+            ranges++;
+        }
+
+        if (changedValues + 2 * ranges >= current.length) {
+            return keyframe(current);
+        }
+
+        final int[] values = new int[changedValues];
+        int offset = 0;
+        for (int r = 0; r < ranges; r++) {
+            System.arraycopy(current, starts[r], values, offset, lengths[r]);
+            offset += lengths[r];
+        }
+        lastSent = current;
+        return new Delta(false, current.length, Arrays.copyOf(starts, ranges),
+                Arrays.copyOf(lengths, ranges), values);
+    }
+
+    private Delta keyframe(final int[] current) {
+        lastSent = current;
+        sinceKeyframe = 0;
+        return new Delta(true, current.length, new int[] {0}, new int[] {current.length},
+                current);
+    }
+
+    /*
+     * A patch that turns the previously sent array into the current one: resize the previous
+     * array to length (an empty array for a keyframe), then overwrite each range with its values.
+     */
+    @Value
+    public static class Delta {
+        boolean keyframe;
+        int length;
+        int[] rangeStarts;
+        int[] rangeLengths;
+        int[] values;
+    }
+}
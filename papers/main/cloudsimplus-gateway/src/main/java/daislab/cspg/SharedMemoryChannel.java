@@ -0,0 +1,239 @@
+package daislab.cspg;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A memory-mapped file holding two lock-free single-producer/single-consumer rings for one
+ * simulation: actions written by the client and step results written by the simulation.
+ * Steps exchanged this way never touch protobuf or a socket; gRPC is only used for
+ * create, reset and close.
+ * <p>
+ * All values are little-endian. Sequence counters only grow; a sequence s lives in slot
+ * s % slots. A producer fills the slot and then publishes it with a release store of its
+ * head; a consumer reads the head with an acquire load and releases the slot by storing
+ * its tail.
+ * </p>
+ * <p>
+ * The simulation thread only polls the action ring while the client is attached. The client
+ * attaches by storing 1 in the attached flag; after every action it publishes it reads the flag
+ * back (with a full fence between the head store and the flag load) and stores 1 again if it
+ * finds 0. The simulation thread clears the flag when no action has arrived for a while and
+ * then only checks the flag now and then, so the first action after a pause may wait up to
+ * that check interval.
+ * </p>
+ * <pre>
+ * header (HEADER_BYTES)
+ *   0   int  magic ("CSPR")        4  int  version
+ *   8   int  slots                12  int  action slot bytes
+ *  16   int  result slot bytes    20  int  observation capacity (ints)
+ *  24   int  closed (set by Java when the simulation is closed)
+ *  28   int  attached (set by the client, cleared by Java when it stops polling)
+ *  64   long action head  (client)    128  long action tail  (Java)
+ * 192   long result head  (Java)      256  long result tail  (client)
+ * action slot (ACTION_SLOT_BYTES)
+ *   0   int[4] action: [action_type, host_id, vm_index, vm_type]
+ * result slot (resultSlotBytes, a multiple of 64)
+ *   0   int  status (STATUS_OK, STATUS_ERROR)
+ *   4   int  observation length
+ *   8   double reward
+ *  16   int  terminated           20  int  truncated
+ *  24   int  job cores waiting    28  int  is valid
+ *  32   int  host affected        36  int  cores changed
+ *  40   double job wait reward    48  double running vm cores reward
+ *  56   double unutilized vm cores reward    64  double invalid reward
+ *  72   int[observation capacity] infrastructure observation
+ * </pre>
+ * Not thread-safe on the Java side: it must only be used from the thread the simulation is
+ * pinned to.
+ */
+public class SharedMemoryChannel implements AutoCloseable {
+
+    public static final int MAGIC = 0x52505343; // "CSPR" read as little-endian bytes
+    public static final int VERSION = 2;
+    public static final int HEADER_BYTES = 320;
+    public static final int ACTION_INTS = 4;
+    public static final int ACTION_SLOT_BYTES = ACTION_INTS * Integer.BYTES;
+    public static final int STATUS_OK = 0;
+    // the step failed or its observation did not fit the slot; details are in the server log
+    public static final int STATUS_ERROR = 1;
+
+    private static final int CLOSED_OFFSET = 24;
+    private static final int ATTACHED_OFFSET = 28;
+    private static final int ACTION_HEAD_OFFSET = 64;
+    private static final int ACTION_TAIL_OFFSET = 128;
+    private static final int RESULT_HEAD_OFFSET = 192;
+    private static final int RESULT_TAIL_OFFSET = 256;
+    private static final int RESULT_OBSERVATION_OFFSET = 72;
+
+    private static final VarHandle LONG_VIEW =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT_VIEW =
+            MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final IntBuffer ints;
+    private final int slots;
+    private final int observationCapacity;
+    private final int resultSlotBytes;
+    private final int resultsOffset;
+    // local copies of the counters this side owns
+    private long actionTail;
+    private long resultHead;
+
+    public SharedMemoryChannel(final Path path, final int slots, final int observationCapacity)
+            throws IOException {
+        if (slots <= 0) {
+            throw new IllegalArgumentException("slots must be positive: " + slots);
+        }
+        this.path = path;
+        this.slots = slots;
+        this.observationCapacity = observationCapacity;
+        this.resultSlotBytes =
+                roundUpToCacheLine(RESULT_OBSERVATION_OFFSET + observationCapacity * Integer.BYTES);
+        this.resultsOffset = HEADER_BYTES + roundUpToCacheLine(slots * ACTION_SLOT_BYTES);
+        final long size = (long) resultsOffset + (long) slots * resultSlotBytes;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Shared memory ring too large: " + size + " bytes");
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        ints = buffer.asIntBuffer();
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, slots);
+        buffer.putInt(12, ACTION_SLOT_BYTES);
+        buffer.putInt(16, resultSlotBytes);
+        buffer.putInt(20, observationCapacity);
+        // the magic is written last, so a client that sees it also sees a complete header
+        INT_VIEW.setRelease(buffer, 0, MAGIC);
+    }
+
+    /**
+     * Takes the next action if one is pending and there is room for its result.
+     *
+     * @return {@code true} if action was filled in
+     */
+    public boolean pollAction(final int[] action) {
+        if (actionTail == (long) LONG_VIEW.getAcquire(buffer, ACTION_HEAD_OFFSET)) {
+            return false;
+        }
+        if (resultHead - (long) LONG_VIEW.getAcquire(buffer, RESULT_TAIL_OFFSET) >= slots) {
+            // the client has not drained the results yet; leave the action queued
+            return false;
+        }
+        final int offset = HEADER_BYTES + (int) (actionTail % slots) * ACTION_SLOT_BYTES;
+        for (int i = 0; i < ACTION_INTS; i++) {
+            action[i] = buffer.getInt(offset + i * Integer.BYTES);
+        }
+        LONG_VIEW.setRelease(buffer, ACTION_TAIL_OFFSET, ++actionTail);
+        return true;
+    }
+
+    /**
+     * Writes the result of the action last returned by {@link #pollAction}.
+     */
+    public void publish(final SimulationStepResult result) {
+        final int[] observation = result.getObservation().getInfrastructureObservation();
+        if (observation.length > observationCapacity) {
+            throw new IllegalStateException("Observation of " + observation.length
+                    + " ints does not fit the shared memory slot of " + observationCapacity);
+        }
+        final SimulationStepInfo info = result.getInfo();
+        final int offset = resultSlotOffset();
+        buffer.putInt(offset + 4, observation.length);
+        buffer.putDouble(offset + 8, result.getReward());
+        buffer.putInt(offset + 16, result.isTerminated() ? 1 : 0);
+        buffer.putInt(offset + 20, result.isTruncated() ? 1 : 0);
+        buffer.putInt(offset + 24, result.getObservation().getJobCoresWaitingObservation());
+        buffer.putInt(offset + 28, info.isValid() ? 1 : 0);
+        buffer.putInt(offset + 32, info.getHostAffected());
+        buffer.putInt(offset + 36, info.getCoresChanged());
+        buffer.putDouble(offset + 40, info.getJobWaitReward());
+        buffer.putDouble(offset + 48, info.getRunningVmCoresReward());
+        buffer.putDouble(offset + 56, info.getUnutilizedVmCoresReward());
+        buffer.putDouble(offset + 64, info.getInvalidReward());
+        ints.put((offset + RESULT_OBSERVATION_OFFSET) / Integer.BYTES, observation);
+        buffer.putInt(offset, STATUS_OK);
+        LONG_VIEW.setRelease(buffer, RESULT_HEAD_OFFSET, ++resultHead);
+    }
+
+    /**
+     * Publishes an empty result flagged with {@link #STATUS_ERROR}, so that a client waiting
+     * for the result of the last action is not left hanging.
+     */
+    public void publishError() {
+        final int offset = resultSlotOffset();
+        buffer.putInt(offset + 4, 0);
+        buffer.putInt(offset, STATUS_ERROR);
+        LONG_VIEW.setRelease(buffer, RESULT_HEAD_OFFSET, ++resultHead);
+    }
+
+    /**
+     * @return {@code true} if the client has asked for its actions to be polled
+     */
+    public boolean isAttached() {
+        return (int) INT_VIEW.getVolatile(buffer, ATTACHED_OFFSET) != 0;
+    }
+
+    /**
+     * Clears the attached flag, unless an action arrived in the meantime: the flag is cleared
+     * before the action head is read again, so either this side sees the action or the client
+     * sees the cleared flag and sets it again.
+     *
+     * @return {@code true} if the ring was detached, {@code false} if an action is pending and
+     *         the ring stays attached
+     */
+    public boolean detach() {
+        INT_VIEW.setVolatile(buffer, ATTACHED_OFFSET, 0);
+        if (actionTail != (long) LONG_VIEW.getVolatile(buffer, ACTION_HEAD_OFFSET)) {
+            INT_VIEW.setVolatile(buffer, ATTACHED_OFFSET, 1);
+            return false;
+        }
+        return true;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Flags the ring as closed for the client and removes the file. The mapping itself is
+     * released when the buffer is garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        INT_VIEW.setRelease(buffer, CLOSED_OFFSET, 1);
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * The directory rings are created in: /dev/shm when it exists, so that the file is backed
+     * by memory only, or the temporary directory otherwise.
+     */
+    public static Path defaultDirectory() {
+        final Path shm = Path.of("/dev/shm");
+        return Files.isDirectory(shm) ? shm : Path.of(System.getProperty("java.io.tmpdir"));
+    }
+
+    private int resultSlotOffset() {
+        return resultsOffset + (int) (resultHead % slots) * resultSlotBytes;
+    }
+
+    private static int roundUpToCacheLine(final int bytes) {
+        return (bytes + 63) & ~63;
+    }
+}
@@ -0,0 +1,76 @@
+package daislab.cspg;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.List;
+
+/**
+ * Java Flight Recorder events for the phases of reset and step, so that a recording shows
+ * simulation work next to GC and allocation data in JDK Mission Control.
+ * <p>
+ * The events are disabled by default and cost next to nothing until a recording enables
+ * them; {@link Main} does so when started with {@code -Djfr.recording=<file>}. The context
+ * fields are only filled in for events that are going to be committed.
+ * </p>
+ */
+final class SimulationEvents {
+
+    static final List<Class<? extends Event>> TYPES = List.of(Reset.class, Step.class,
+            Action.class, Timestep.class, Observation.class, Reward.class, Marshalling.class);
+
+    private SimulationEvents() {}
+
+    @Category("CloudSim Plus Gateway")
+    @Enabled(false)
+    @StackTrace(false)
+    abstract static class PhaseEvent extends Event {
+        @Label("Simulation")
+        String simId;
+
+        @Label("Step")
+        int step;
+
+        @Label("Jobs Waiting")
+        @Description("Jobs that have arrived but are not running")
+        long jobsWaiting;
+
+        @Label("VMs Running")
+        int vmsRunning;
+    }
+
+    @Name("daislab.cspg.Reset")
+    @Label("Reset")
+    static class Reset extends PhaseEvent {}
+
+    @Name("daislab.cspg.Step")
+    @Label("Step")
+    static class Step extends PhaseEvent {}
+
+    @Name("daislab.cspg.Action")
+    @Label("Action Execution")
+    static class Action extends PhaseEvent {}
+
+    @Name("daislab.cspg.Timestep")
+    @Label("Timestep Advance")
+    @Description("Submitting the arrived jobs and advancing the clock by one timestep")
+    static class Timestep extends PhaseEvent {}
+
+    @Name("daislab.cspg.Observation")
+    @Label("Observation Encoding")
+    static class Observation extends PhaseEvent {}
+
+    @Name("daislab.cspg.Reward")
+    @Label("Reward")
+    static class Reward extends PhaseEvent {}
+
+    @Name("daislab.cspg.Marshalling")
+    @Label("gRPC Marshalling")
+    @Description("Converting a step result into its protobuf message")
+    static class Marshalling extends PhaseEvent {}
+}
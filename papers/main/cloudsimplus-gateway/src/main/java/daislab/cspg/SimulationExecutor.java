@@ -0,0 +1,410 @@
+package daislab.cspg;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Pins a {@link WrappedSimulation} to a dedicated single-thread executor.
+ * <p>
+ * Every call that touches the simulation (including its construction) runs on the same
+ * thread, so the CloudSim Plus instance, which is not thread-safe, is never accessed
+ * concurrently and its working set stays on one core. Different simulations own different
+ * threads and therefore run in parallel inside one JVM.
+ * </p>
+ */
+public class SimulationExecutor {
+
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(SimulationExecutor.class.getSimpleName());
+
+    // the step info fields that have a slot in the shared memory ring
+    private static final Set<StepInfoField> SHARED_MEMORY_INFO_FIELDS = EnumSet.of(
+            StepInfoField.JOB_WAIT_REWARD, StepInfoField.RUNNING_VM_CORES_REWARD,
+            StepInfoField.UNUTILIZED_VM_CORES_REWARD, StepInfoField.INVALID_REWARD,
+            StepInfoField.IS_VALID, StepInfoField.HOST_AFFECTED, StepInfoField.CORES_CHANGED);
+    // actions handled per pump run before queued gRPC calls get a turn
+    private static final int PUMP_BATCH = 64;
+    // idle pump runs that only spin before the pump starts parking
+    private static final int PUMP_SPIN_RUNS = 1_000;
+    private static final long PUMP_MAX_PARK_NANOS = 1_000_000;
+    // how long the pump polls without getting an action before it detaches from the ring
+    private static final long PUMP_IDLE_NANOS = 50_000_000;
+    // how often a detached ring is checked for the client attaching again
+    private static final long ATTACH_CHECK_MICROS = 1_000;
+    // checks the attached flag of every ring whose pump is not running
+    private static final ScheduledExecutorService ATTACH_WATCHER =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "shm-attach-watcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final String identifier;
+    private final ExecutorService executor;
+    private final Runnable onShutdown;
+    private final AtomicBoolean shutDown = new AtomicBoolean();
+    private WrappedSimulation simulation;
+    private SimulationSettings settings;
+    private Set<StepInfoField> defaultInfoFields;
+    private StepMetrics metrics;
+    private ObservationDeltaEncoder deltaEncoder;
+    private volatile SharedMemoryChannel sharedMemory;
+    private Path sharedMemoryPath;
+    private volatile String traceHash;
+    private final int[] pumpAction = new int[SharedMemoryChannel.ACTION_INTS];
+    private int idlePumpRuns;
+    private long idleSinceNanos;
+    // set while the pump is queued or running on the pinned thread
+    private final AtomicBoolean pumping = new AtomicBoolean();
+    // the pinned thread while it runs the pump, so that submit() can cut a park short
+    private volatile Thread pumpThread;
+    private volatile ScheduledFuture<?> attachCheck;
+    // mailbox metrics: calls queued or running, and how long calls waited for the thread
+    private final AtomicInteger mailboxDepth = new AtomicInteger();
+    private final AtomicInteger maxMailboxDepth = new AtomicInteger();
+    // written by the pinned thread only
+    private volatile long calls;
+    private volatile long queueWaitNanosTotal;
+    private volatile long queueWaitNanosMax;
+
+    /**
+     * @param onShutdown runs once when the pinned thread is released, e.g. to hand back the
+     *        slot this simulation took from {@link SimulationFactory}
+     */
+    SimulationExecutor(final String identifier, final Runnable onShutdown) {
+        this.identifier = identifier;
+        this.onShutdown = onShutdown;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sim-" + identifier);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Builds the simulation on the pinned thread so that its state is allocated by the thread
+     * that is going to use it.
+     */
+    void initialize(final Callable<WrappedSimulation> constructor) {
+        simulation = await(executor.submit(constructor));
+        settings = simulation.getSettings();
+        defaultInfoFields = simulation.getDefaultInfoFields();
+        metrics = simulation.getMetrics();
+        if (settings.getObservationKeyframeInterval() > 0) {
+            deltaEncoder = new ObservationDeltaEncoder(settings.getObservationKeyframeInterval());
+        }
+        if (settings.getSharedMemorySlots() > 0) {
+            openSharedMemory();
+        }
+    }
+
+    /**
+     * Maps the shared memory ring and starts watching it for the client to attach. While the
+     * client is attached the ring is pumped on the pinned thread. The pump runs as an ordinary
+     * task that re-queues itself, so gRPC calls (reset, close) submitted in the meantime are
+     * interleaved between pump runs, and detaches once no action has come for a while.
+     */
+    private void openSharedMemory() {
+        final Path path = SharedMemoryChannel.defaultDirectory().resolve(
+                "cspg-" + ProcessHandle.current().pid() + "-" + identifier + ".ring");
+        try {
+            sharedMemory = new SharedMemoryChannel(path, settings.getSharedMemorySlots(),
+                    maxObservationLength(settings));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create shared memory ring " + path, e);
+        }
+        sharedMemoryPath = path;
+        attachCheck = ATTACH_WATCHER.scheduleWithFixedDelay(this::checkAttached,
+                ATTACH_CHECK_MICROS, ATTACH_CHECK_MICROS, TimeUnit.MICROSECONDS);
+        LOGGER.info("Simulation {} steps through shared memory ring {}", identifier, path);
+    }
+
+    /**
+     * Runs on the watcher thread: queues the pump once the client has attached.
+     */
+    private void checkAttached() {
+        final SharedMemoryChannel channel = sharedMemory;
+        if (channel == null || pumping.get() || !channel.isAttached()
+                || !pumping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::pump);
+        } catch (RejectedExecutionException e) {
+            // the executor is shut down, nothing is going to pump the ring any more
+            pumping.set(false);
+            attachCheck.cancel(false);
+        }
+    }
+
+    private void pump() {
+        final SharedMemoryChannel channel = sharedMemory;
+        if (channel == null) {
+            stopPumping();
+            return;
+        }
+        pumpThread = Thread.currentThread();
+        int processed = 0;
+        while (processed < PUMP_BATCH && channel.pollAction(pumpAction)) {
+            try {
+                channel.publish(simulation.step(pumpAction, SHARED_MEMORY_INFO_FIELDS));
+            } catch (RuntimeException e) {
+                LOGGER.error("Shared memory step failed for simulation {}", identifier, e);
+                channel.publishError();
+            }
+            processed++;
+        }
+        if (processed > 0) {
+            idlePumpRuns = 0;
+            // ring steps bypass the delta encoder, so the next observation sent over gRPC
+            // (a reset, or a step between or after ring steps) must be a keyframe again
+            if (deltaEncoder != null) {
+                deltaEncoder.reset();
+            }
+        } else if (idlePumpRuns++ == 0) {
+            idleSinceNanos = System.nanoTime();
+        } else if (System.nanoTime() - idleSinceNanos >= PUMP_IDLE_NANOS) {
+            if (channel.detach()) {
+                LOGGER.debug("Shared memory pump for simulation {} detached", identifier);
+                stopPumping();
+                return;
+            }
+            idlePumpRuns = 0;
+        } else if (idlePumpRuns < PUMP_SPIN_RUNS) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(Math.min(PUMP_MAX_PARK_NANOS,
+                    1_000L * (idlePumpRuns - PUMP_SPIN_RUNS + 1)));
+        }
+        try {
+            executor.execute(this::pump);
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("Shared memory pump for simulation {} stopped", identifier);
+            stopPumping();
+        }
+    }
+
+    private void stopPumping() {
+        pumpThread = null;
+        idlePumpRuns = 0;
+        pumping.set(false);
+    }
+
+    /**
+     * An upper bound for the infrastructure observation: every host, at most one VM and one
+     * running job per core, two ints per node.
+     */
+    private static int maxObservationLength(final SimulationSettings settings) {
+        final long cores = settings.getTotalHostCores();
+        return Math.toIntExact(2 * (1 + settings.getHostsCount() + 2 * cores));
+    }
+
+    /**
+     * Runs the given call on the pinned thread and waits for its result.
+     */
+    public <T> T call(final Function<WrappedSimulation, T> call) {
+        return await(submit(call));
+    }
+
+    /**
+     * Queues the given call on the pinned thread. Calls run strictly in submission order.
+     */
+    public <T> Future<T> submit(final Function<WrappedSimulation, T> call) {
+        final long enqueued = System.nanoTime();
+        maxMailboxDepth.accumulateAndGet(mailboxDepth.incrementAndGet(), Math::max);
+        try {
+            final Future<T> future = executor.submit(() -> {
+                recordQueueWait(System.nanoTime() - enqueued);
+                try {
+                    return call.apply(simulation);
+                } finally {
+                    mailboxDepth.decrementAndGet();
+                }
+            });
+            // a parked pump would otherwise hold the call back until its park times out
+            final Thread parked = pumpThread;
+            if (parked != null) {
+                LockSupport.unpark(parked);
+            }
+            return future;
+        } catch (RejectedExecutionException e) {
+            mailboxDepth.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void recordQueueWait(final long waitNanos) {
+        metrics.get(StepMetrics.Phase.QUEUE_WAIT).record(waitNanos);
+        calls++;
+        queueWaitNanosTotal += waitNanos;
+        if (waitNanos > queueWaitNanosMax) {
+            queueWaitNanosMax = waitNanos;
+        }
+    }
+
+    /**
+     * Commits a flight recorder event with the simulation's context. Only to be used from calls
+     * running on the pinned thread.
+     */
+    void commitEvent(final SimulationEvents.PhaseEvent event) {
+        simulation.commitEvent(event);
+    }
+
+    /**
+     * Closes the simulation on its own thread and releases the thread.
+     */
+    public void close() {
+        try {
+            call(sim -> {
+                closeSharedMemory();
+                sim.close();
+                return null;
+            });
+        } finally {
+            shutdown();
+        }
+    }
+
+    private void closeSharedMemory() {
+        final SharedMemoryChannel channel = sharedMemory;
+        if (channel == null) {
+            return;
+        }
+        sharedMemory = null;
+        attachCheck.cancel(false);
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.warn("Could not remove shared memory ring {}: {}", sharedMemoryPath,
+                    e.getMessage());
+        }
+    }
+
+    void shutdown() {
+        if (!shutDown.compareAndSet(false, true)) {
+            return;
+        }
+        if (sharedMemory != null) {
+            try {
+                executor.execute(this::closeSharedMemory);
+            } catch (RejectedExecutionException e) {
+                LOGGER.debug("Executor for simulation {} already shut down", identifier);
+            }
+        }
+        executor.shutdown();
+        onShutdown.run();
+        LOGGER.debug("Executor for simulation {} shut down", identifier);
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    /**
+     * Settings are immutable, so they can be read from any thread.
+     */
+    public SimulationSettings getSettings() {
+        return settings;
+    }
+
+    public Set<StepInfoField> getDefaultInfoFields() {
+        return defaultInfoFields;
+    }
+
+    public StepMetrics getMetrics() {
+        return metrics;
+    }
+
+    public long getFutureEvents() {
+        return simulation.getFutureEvents();
+    }
+
+    /**
+     * The registered trace the simulation was created from, or {@code null}.
+     */
+    public String getTraceHash() {
+        return traceHash;
+    }
+
+    void setTraceHash(final String traceHash) {
+        this.traceHash = traceHash;
+    }
+
+    /**
+     * The shared memory ring of the simulation, or {@code null} when it steps over gRPC only.
+     */
+    public Path getSharedMemoryPath() {
+        return sharedMemoryPath;
+    }
+
+    /**
+     * Calls queued for the pinned thread, including the one running.
+     */
+    public int getMailboxDepth() {
+        return mailboxDepth.get();
+    }
+
+    public int getMaxMailboxDepth() {
+        return maxMailboxDepth.get();
+    }
+
+    /**
+     * Calls that have started running on the pinned thread.
+     */
+    public long getCalls() {
+        return calls;
+    }
+
+    /**
+     * Time the started calls spent queued before they ran, in nanoseconds.
+     */
+    public long getQueueWaitNanosTotal() {
+        return queueWaitNanosTotal;
+    }
+
+    public long getQueueWaitNanosMax() {
+        return queueWaitNanosMax;
+    }
+
+    /**
+     * The delta encoder of the simulation, or {@code null} when observations are sent in full.
+     * Only to be used from calls running on the pinned thread.
+     */
+    ObservationDeltaEncoder getDeltaEncoder() {
+        return deltaEncoder;
+    }
+
+    static <T> T await(final Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for simulation", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -9,6 +9,8 @@ import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 
 public class SimulationFactory {
 
@@ -20,30 +22,143 @@ public class SimulationFactory {
 
     private static final Gson gson = new Gson();
 
+    private static final int DEFAULT_MAX_SIMULATIONS = 64;
+
     private int created = 0;
 
-    public synchronized WrappedSimulation create(final Map<String, Object> params,
+    // every pinned simulation owns one thread, so this also bounds the simulation threads
+    private final int maxPinnedSimulations;
+    private final Semaphore pinnedSlots;
+
+    public SimulationFactory() {
+        this(Integer.getInteger("simulations.max", DEFAULT_MAX_SIMULATIONS));
+    }
+
+    SimulationFactory(final int maxPinnedSimulations) {
+        this.maxPinnedSimulations = maxPinnedSimulations;
+        this.pinnedSlots = new Semaphore(maxPinnedSimulations);
+    }
+
+    public WrappedSimulation create(final Map<String, Object> params,
             final String jobsAsJson) {
-        String identifier = "Sim" + created++;
+        return create(nextIdentifier(), params, jobsAsJson);
+    }
+
+    /**
+     * Creates a simulation pinned to its own single-thread executor. The settings and the
+     * job list are built on that thread, and every later call on the simulation goes through
+     * the returned {@link SimulationExecutor}.
+     *
+     * @throws RejectedExecutionException if {@code simulations.max} pinned simulations are
+     *         already open
+     */
+    public SimulationExecutor createPinned(final Map<String, Object> params,
+            final String jobsAsJson) {
+        final SimulationExecutor executor = newPinnedExecutor();
+        final String identifier = executor.getIdentifier();
+        try {
+            executor.initialize(() -> create(identifier, params, jobsAsJson));
+        } catch (RuntimeException e) {
+            executor.shutdown();
+            throw e;
+        }
+        return executor;
+    }
+
+    /**
+     * Creates a pinned simulation over a registered trace. The simulation reads the shared job
+     * list of the trace instead of a copy of its own.
+     *
+     * @throws RejectedExecutionException if {@code simulations.max} pinned simulations are
+     *         already open
+     */
+    public SimulationExecutor createPinned(final Map<String, Object> params,
+            final TraceRegistry.Trace trace) {
+        final SimulationExecutor executor = newPinnedExecutor();
+        final String identifier = executor.getIdentifier();
+        try {
+            executor.initialize(() -> {
+                final SimulationSettings settings = createSettings(params);
+                final List<CloudletDescriptor> jobs = settings.isSplitLargeJobs()
+                        ? trace.getSplitJobs(settings.getMaxJobPes(),
+                                maxJobPes -> splitLargeJobs(trace.getJobs(), maxJobPes, 0))
+                        : trace.getJobs();
+                LOGGER.info("Simulation {} uses trace {}", identifier, trace.getHash());
+                return new WrappedSimulation(identifier, settings, jobs);
+            });
+        } catch (RuntimeException e) {
+            executor.shutdown();
+            throw e;
+        }
+        return executor;
+    }
+
+    /**
+     * Parses a JSON job list into clamped descriptors, without splitting, which depends on
+     * the settings of each simulation.
+     */
+    List<CloudletDescriptor> parseJobs(final String jobsAsJson) {
+        final List<CloudletDescriptor> deserialized = loadJobsFromJson(jobsAsJson);
+        final List<CloudletDescriptor> clamped = new ArrayList<>(deserialized.size());
+        for (CloudletDescriptor cloudletDescriptor : deserialized) {
+            clamped.add(ensureMinValues(cloudletDescriptor));
+        }
+        return clamped;
+    }
 
+    private SimulationExecutor newPinnedExecutor() {
+        if (!pinnedSlots.tryAcquire()) {
+            throw new RejectedExecutionException("Too many open simulations (simulations.max="
+                    + maxPinnedSimulations + ")");
+        }
+        return new SimulationExecutor(nextIdentifier(), pinnedSlots::release);
+    }
+
+    private synchronized String nextIdentifier() {
+        return "Sim" + created++;
+    }
+
+    private WrappedSimulation create(final String identifier, final Map<String, Object> params,
+            final String jobsAsJson) {
+        final SimulationSettings settings = createSettings(params);
+
+        final List<CloudletDescriptor> jobs =
+                prepareJobs(settings, loadJobsFromJson(jobsAsJson), 0);
+
+        return new WrappedSimulation(identifier, settings, jobs);
+    }
+
+    private SimulationSettings createSettings(final Map<String, Object> params) {
         final SimulationSettings settings = new SimulationSettings(params);
 
         LOGGER.info("Simulation settings dump\n{}", settings);
 
-        List<CloudletDescriptor> jobs = loadJobsFromJson(jobsAsJson);
+        return settings;
+    }
+
+    /**
+     * Clamps the descriptors to valid values and splits large jobs when the settings ask for
+     * it. Split jobs are renumbered starting at firstSplitId, so that jobs appended to an
+     * existing store continue its numbering.
+     */
+    List<CloudletDescriptor> prepareJobs(final SimulationSettings settings,
+            final List<CloudletDescriptor> jobs, final int firstSplitId) {
+        List<CloudletDescriptor> prepared = new ArrayList<>(jobs.size());
+        for (CloudletDescriptor cloudletDescriptor : jobs) {
+            prepared.add(ensureMinValues(cloudletDescriptor));
+        }
 
         if (settings.isSplitLargeJobs()) {
             LOGGER.info("Splitting large jobs");
-            jobs = splitLargeJobs(jobs, settings.getMaxJobPes());
+            prepared = splitLargeJobs(prepared, settings.getMaxJobPes(), firstSplitId);
         }
-
-        return new WrappedSimulation(identifier, settings, jobs);
+        return prepared;
     }
 
     private List<CloudletDescriptor> splitLargeJobs(final List<CloudletDescriptor> jobs,
-            final int maxJobPes) {
+            final int maxJobPes, final int firstSplitId) {
         List<CloudletDescriptor> splitted = new ArrayList<>();
-        int splittedId = 0;
+        int splittedId = firstSplitId;
         for (CloudletDescriptor cloudletDescriptor : jobs) {
             int jobPesNumber = cloudletDescriptor.getCores();
             int splitCount = Math.max(1, (jobPesNumber + maxJobPes - 1) / maxJobPes);
@@ -77,18 +192,17 @@ public class SimulationFactory {
     }
 
     private List<CloudletDescriptor> loadJobsFromJson(final String jobsAsJson) {
-        List<CloudletDescriptor> jobList = new ArrayList<>();
-        LOGGER.info(jobsAsJson);
+        if (jobsAsJson == null || jobsAsJson.isBlank()) {
+            // jobs are uploaded separately
+            return List.of();
+        }
+        LOGGER.debug("Deserializing {} characters of jobs JSON", jobsAsJson.length());
         final List<CloudletDescriptor> deserialized =
                 gson.fromJson(jobsAsJson, cloudletDescriptors);
 
-        for (CloudletDescriptor cloudletDescriptor : deserialized) {
-            jobList.add(ensureMinValues(cloudletDescriptor));
-        }
-
-        LOGGER.info("Deserialized {} jobs", jobList.size());
+        LOGGER.info("Deserialized {} jobs", deserialized.size());
 
-        return jobList;
+        return deserialized;
     }
 
     private CloudletDescriptor ensureMinValues(final CloudletDescriptor cloudletDescriptor) {
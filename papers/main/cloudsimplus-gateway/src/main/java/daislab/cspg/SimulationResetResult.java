@@ -10,6 +10,7 @@ public class SimulationResetResult {
 
     Observation observation;
     SimulationStepInfo info;
+    int episode;
 
     // Lombok generates: all-args constructor, getters, equals, hashCode, toString
 }
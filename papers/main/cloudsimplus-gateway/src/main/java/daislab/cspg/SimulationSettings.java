@@ -54,6 +54,11 @@ public class SimulationSettings {
     String vmAllocationPolicy;
     String algorithm;
     boolean sendObservationTreeArray;
+    boolean packedObservations;
+    int observationKeyframeInterval;
+    int sharedMemorySlots;
+    boolean prefetchReset;
+    String diagnosticsDir;
 
     public SimulationSettings(final Map<String, Object> params) {
         minTimeBetweenEvents = 0.1;
@@ -92,6 +97,21 @@ public class SimulationSettings {
         sendObservationTreeArray = params.containsKey("send_observation_tree_array")
                 ? (boolean) params.get("send_observation_tree_array")
                 : true;
+        packedObservations = params.containsKey("packed_observations")
+                ? (boolean) params.get("packed_observations")
+                : false;
+        observationKeyframeInterval = params.containsKey("observation_keyframe_interval")
+                ? (int) params.get("observation_keyframe_interval")
+                : 0;
+        sharedMemorySlots = params.containsKey("shared_memory_slots")
+                ? (int) params.get("shared_memory_slots")
+                : 0;
+        prefetchReset = params.containsKey("prefetch_reset")
+                ? (boolean) params.get("prefetch_reset")
+                : false;
+        diagnosticsDir = params.containsKey("diagnostics_dir")
+                ? (String) params.get("diagnostics_dir")
+                : "";
     }
 
     // Lombok generates: all-args constructor, getters, equals, hashCode, toString
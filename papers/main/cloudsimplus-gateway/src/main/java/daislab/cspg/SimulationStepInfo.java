@@ -2,11 +2,13 @@ package daislab.cspg;
 
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Set;
 import com.google.gson.Gson;
 
 /*
  * Class that represents the info object that is returned as part of the result of each step method
- * call.
+ * call. Only the fields in the requested mask are computed; the others keep their zero value and
+ * are not serialized.
  */
 public class SimulationStepInfo {
     private final Gson gson = new Gson();
@@ -25,9 +27,10 @@ public class SimulationStepInfo {
     private final int[] observationTreeArray;
     private final int hostAffected;
     private final int coresChanged;
+    private final Set<StepInfoField> fields;
     // private final String dotString;
 
-    public SimulationStepInfo() {
+    public SimulationStepInfo(final Set<StepInfoField> fields) {
         this.jobWaitReward = 0;
         this.runningVmCoresReward = 0;
         this.unutilizedVmCoresReward = 0;
@@ -42,11 +45,12 @@ public class SimulationStepInfo {
         this.observationTreeArray = new int[1];
         this.hostAffected = 0;
         this.coresChanged = 0;
+        this.fields = fields;
     }
 
     public SimulationStepInfo(final double[] rewards, final List<Double> jobWaitTime,
             final double unutilizedVmCoreRatio, final int[] observationTreeArray,
-            final int hostAffected, final int coresChanged, final boolean includeTreeArray) {
+            final int hostAffected, final int coresChanged, final Set<StepInfoField> fields) {
         this.jobWaitReward = rewards[1];
         this.runningVmCoresReward = rewards[2];
         this.unutilizedVmCoresReward = rewards[3];
@@ -57,12 +61,21 @@ public class SimulationStepInfo {
         this.jobWaitTime = jobWaitTime;
         this.unutilizedVmCoreRatio = unutilizedVmCoreRatio;
         this.valid = this.invalidReward == 0 ? true : false;
-        this.observationTreeArray = includeTreeArray ? observationTreeArray : new int[1];
+        this.observationTreeArray = observationTreeArray;
         this.hostAffected = hostAffected;
         this.coresChanged = coresChanged;
+        this.fields = fields;
         // this.dotString = dotString;
     }
 
+    public boolean includes(final StepInfoField field) {
+        return fields.contains(field);
+    }
+
+    public Set<StepInfoField> getFields() {
+        return fields;
+    }
+
     public double getJobWaitReward() {
         return jobWaitReward;
     }
@@ -131,6 +144,10 @@ public class SimulationStepInfo {
         return gson.toJson(observationTreeArray);
     }
 
+    public int[] getObservationTreeArray() {
+        return observationTreeArray;
+    }
+
     public List<Integer> getObservationTreeArrayAsList() {
         List<Integer> list = new ArrayList<>(observationTreeArray.length);
         for (int v : observationTreeArray) list.add(v);
@@ -13,6 +13,11 @@ public class SimulationStepResult {
     boolean terminated;
     boolean truncated;
     SimulationStepInfo info;
+    // first observation of the next episode when the step ended the episode and the
+    // simulation was reset right away, null otherwise
+    Observation resetObservation;
+    // episode the step belongs to
+    int episode;
 
     // Lombok generates: all-args constructor, getters, equals, hashCode, toString
 }
@@ -0,0 +1,71 @@
+package daislab.cspg;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * The fields of the step info object a client can ask for. Names match the StepInfo message in
+ * cloudsimplus.proto. Fields that are not requested are neither computed nor serialized.
+ */
+public enum StepInfoField {
+    JOB_WAIT_REWARD("job_wait_reward"),
+    RUNNING_VM_CORES_REWARD("running_vm_cores_reward"),
+    UNUTILIZED_VM_CORES_REWARD("unutilized_vm_cores_reward"),
+    INVALID_REWARD("invalid_reward"),
+    IS_VALID("is_valid"),
+    JOB_WAIT_TIME("job_wait_time"),
+    UNUTILIZED_VM_CORE_RATIO("unutilized_vm_core_ratio"),
+    OBSERVATION_TREE_ARRAY("observation_tree_array"),
+    HOST_AFFECTED("host_affected"),
+    CORES_CHANGED("cores_changed");
+
+    private final String protoName;
+
+    StepInfoField(final String protoName) {
+        this.protoName = protoName;
+    }
+
+    public String getProtoName() {
+        return protoName;
+    }
+
+    /**
+     * The fields sent when a request does not carry a mask: everything, except the observation
+     * tree array when send_observation_tree_array is disabled.
+     */
+    public static Set<StepInfoField> defaults(final SimulationSettings settings) {
+        final EnumSet<StepInfoField> fields = EnumSet.allOf(StepInfoField.class);
+        if (!settings.isSendObservationTreeArray()) {
+            fields.remove(OBSERVATION_TREE_ARRAY);
+        }
+        return Collections.unmodifiableSet(fields);
+    }
+
+    /**
+     * Parses a mask of proto field names. An empty mask selects the given defaults.
+     *
+     * @throws IllegalArgumentException if a name does not match any StepInfo field
+     */
+    public static Set<StepInfoField> parse(final List<String> names,
+            final Set<StepInfoField> defaults) {
+        if (names.isEmpty()) {
+            return defaults;
+        }
+        final EnumSet<StepInfoField> fields = EnumSet.noneOf(StepInfoField.class);
+        for (String name : names) {
+            fields.add(fromProtoName(name));
+        }
+        return fields;
+    }
+
+    private static StepInfoField fromProtoName(final String name) {
+        for (StepInfoField field : values()) {
+            if (field.protoName.equals(name)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown StepInfo field: " + name);
+    }
+}
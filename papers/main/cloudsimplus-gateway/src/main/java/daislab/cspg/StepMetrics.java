@@ -0,0 +1,42 @@
+package daislab.cspg;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The latency histograms of one simulation, one per phase of a call. The phases of a step
+ * nest: STEP covers ACTION, SUBMIT_JOBS, PROCEED_CLOCK, REWARD and OBSERVATION, while
+ * QUEUE_WAIT and CONVERSION happen around it in the executor and the gRPC service.
+ */
+public class StepMetrics {
+
+    public enum Phase {
+        // time a call waited for the simulation's pinned thread
+        QUEUE_WAIT,
+        RESET,
+        STEP,
+        ACTION,
+        SUBMIT_JOBS,
+        PROCEED_CLOCK,
+        REWARD,
+        OBSERVATION,
+        // building the protobuf response
+        CONVERSION
+    }
+
+    private final Map<Phase, LatencyHistogram> histograms = new EnumMap<>(Phase.class);
+
+    public StepMetrics() {
+        for (Phase phase : Phase.values()) {
+            histograms.put(phase, new LatencyHistogram());
+        }
+    }
+
+    public void recordSince(final Phase phase, final long startNanos) {
+        histograms.get(phase).recordSince(startNanos);
+    }
+
+    public LatencyHistogram get(final Phase phase) {
+        return histograms.get(phase);
+    }
+}
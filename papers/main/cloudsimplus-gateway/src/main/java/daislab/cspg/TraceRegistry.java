@@ -0,0 +1,157 @@
+package daislab.cspg;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Parsed job traces shared by all simulations of the JVM, keyed by the SHA-256 of their JSON.
+ * <p>
+ * A trace is parsed once, and every simulation created from it reads the same immutable job
+ * list. Traces in use by a simulation are pinned by a reference count; unused traces are kept
+ * for later experiments and evicted least-recently-used first once more than maxIdleTraces of
+ * them pile up.
+ * </p>
+ */
+public class TraceRegistry {
+
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(TraceRegistry.class.getSimpleName());
+
+    private final int maxIdleTraces;
+    private final Function<String, List<CloudletDescriptor>> parser;
+    // access-ordered, so iteration starts at the least recently used trace
+    private final LinkedHashMap<String, Trace> traces = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * @param maxIdleTraces how many traces without simulations to keep (at least 1)
+     * @param parser        turns the JSON of a trace into its job list
+     */
+    public TraceRegistry(final int maxIdleTraces,
+            final Function<String, List<CloudletDescriptor>> parser) {
+        this.maxIdleTraces = Math.max(1, maxIdleTraces);
+        this.parser = parser;
+    }
+
+    /**
+     * Parses and stores a trace unless one with the same content is already registered.
+     */
+    public Trace register(final String jobsAsJson) {
+        final String hash = hash(jobsAsJson);
+        synchronized (this) {
+            final Trace existing = traces.get(hash);
+            if (existing != null) {
+                return existing;
+            }
+        }
+
+        // parse outside the lock, so a large trace does not stall other simulations
+        final Trace parsed = new Trace(hash, List.copyOf(parser.apply(jobsAsJson)));
+        synchronized (this) {
+            final Trace raced = traces.putIfAbsent(hash, parsed);
+            if (raced != null) {
+                return raced;
+            }
+            LOGGER.info("Registered trace {} with {} jobs", hash, parsed.getJobs().size());
+            evictIdle();
+            return parsed;
+        }
+    }
+
+    /**
+     * Pins a trace for a new simulation. Every acquire must be paired with a release.
+     *
+     * @throws IllegalArgumentException if no trace with that hash is registered
+     */
+    public synchronized Trace acquire(final String hash) {
+        final Trace trace = traces.get(hash);
+        if (trace == null) {
+            throw new IllegalArgumentException("Unknown trace hash: " + hash);
+        }
+        trace.refCount++;
+        return trace;
+    }
+
+    public synchronized void release(final String hash) {
+        final Trace trace = traces.get(hash);
+        if (trace == null || trace.refCount == 0) {
+            LOGGER.warn("Release of trace {} that is not acquired", hash);
+            return;
+        }
+        trace.refCount--;
+        evictIdle();
+    }
+
+    private void evictIdle() {
+        int idle = 0;
+        for (Trace trace : traces.values()) {
+            if (trace.refCount == 0) {
+                idle++;
+            }
+        }
+        final Iterator<Trace> iterator = traces.values().iterator();
+        while (idle > maxIdleTraces && iterator.hasNext()) {
+            final Trace trace = iterator.next();
+            if (trace.refCount == 0) {
+                iterator.remove();
+                idle--;
+                LOGGER.info("Evicted trace {}", trace.getHash());
+            }
+        }
+    }
+
+    static String hash(final String jobsAsJson) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(
+                    digest.digest(jobsAsJson.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * An immutable job table. Large-job splitting depends on the settings of a simulation, so
+     * split variants are derived on demand and shared as well.
+     */
+    public static final class Trace {
+        private final String hash;
+        private final List<CloudletDescriptor> jobs;
+        private final Map<Integer, List<CloudletDescriptor>> splitJobs = new ConcurrentHashMap<>();
+        // guarded by the registry
+        private int refCount;
+
+        private Trace(final String hash, final List<CloudletDescriptor> jobs) {
+            this.hash = hash;
+            this.jobs = jobs;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        public List<CloudletDescriptor> getJobs() {
+            return jobs;
+        }
+
+        /**
+         * The jobs split for the given maximum job size, computed by splitter on first use.
+         */
+        public List<CloudletDescriptor> getSplitJobs(final int maxJobPes,
+                final IntFunction<List<CloudletDescriptor>> splitter) {
+            return splitJobs.computeIfAbsent(maxJobPes,
+                    key -> List.copyOf(splitter.apply(key)));
+        }
+    }
+}
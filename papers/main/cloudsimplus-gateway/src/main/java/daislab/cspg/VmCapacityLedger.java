@@ -0,0 +1,139 @@
+package daislab.cspg;
+
+import org.cloudsimplus.vms.Vm;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aggregates over the VMs the broker is running, kept up to date as VMs are placed on and removed
+ * from hosts and as the broker maps cloudlets to VMs and gets them back, so that the reward, the
+ * observation and the rule-based policies read them without walking the VM list.
+ * <p>
+ * The ledger holds the PEs allocated to running VMs, the sum of their expected free PEs (the PEs
+ * not claimed by a cloudlet mapped to them), a multiset of the expected free PEs of each VM for
+ * the maximum and the number of cloudlets in the execution lists of the running VMs. The broker
+ * changes the expected free PEs of a VM right after asking its VM mapper for it, so
+ * {@link DatacenterBrokerFirstFitFixed} only marks the VM, and the new value is read on the next
+ * query.
+ * </p>
+ */
+public class VmCapacityLedger {
+
+    // the expected free PEs of each running vm, as of the last query, by vm id (the hash code of a
+    // vm changes when it is submitted to a broker)
+    private final Map<Long, Long> expectedFreePes = new HashMap<>();
+    // how many running vms have each number of expected free PEs
+    private final TreeMap<Long, Integer> expectedFreePesCounts = new TreeMap<>();
+    // running vms whose expected free PEs may have changed since the last query
+    private final Map<Long, Vm> changedVms = new HashMap<>();
+    private long allocatedPes;
+    private long totalExpectedFreePes;
+    private long runningCloudlets;
+
+    /**
+     * Keeps the ledger for a vm from the moment it is placed on a host until it is removed.
+     */
+    public void track(final Vm vm) {
+        vm.addOnHostAllocationListener(info -> onVmStarted(vm));
+        vm.addOnHostDeallocationListener(info -> onVmStopped(vm));
+    }
+
+    /**
+     * Marks that the broker has mapped a cloudlet to the vm or got one back from it.
+     */
+    public void expectedFreePesChanged(final Vm vm) {
+        if (expectedFreePes.containsKey(vm.getId())) {
+            changedVms.put(vm.getId(), vm);
+        }
+    }
+
+    /**
+     * A cloudlet entered the execution list of its vm.
+     */
+    public void cloudletStarted() {
+        runningCloudlets++;
+    }
+
+    /**
+     * A cloudlet finished and left the execution list of its vm.
+     */
+    public void cloudletFinished() {
+        runningCloudlets--;
+    }
+
+    /**
+     * @return the cloudlets in the execution lists of all running vms
+     */
+    public long getRunningCloudlets() {
+        return runningCloudlets;
+    }
+
+    /**
+     * @return the PEs of all running vms
+     */
+    public long getAllocatedPes() {
+        return allocatedPes;
+    }
+
+    /**
+     * @return the expected free PEs of all running vms together
+     */
+    public long getExpectedFreePes() {
+        applyChanges();
+        return totalExpectedFreePes;
+    }
+
+    /**
+     * @return the most expected free PEs of a single running vm, 0 if no vm is running
+     */
+    public long getMaxExpectedFreePes() {
+        applyChanges();
+        return expectedFreePesCounts.isEmpty() ? 0 : expectedFreePesCounts.lastKey();
+    }
+
+    private void onVmStarted(final Vm vm) {
+        final long freePes = vm.getExpectedFreePesNumber();
+        if (expectedFreePes.putIfAbsent(vm.getId(), freePes) != null) {
+            return;
+        }
+        allocatedPes += vm.getPesNumber();
+        totalExpectedFreePes += freePes;
+        expectedFreePesCounts.merge(freePes, 1, Integer::sum);
+    }
+
+    private void onVmStopped(final Vm vm) {
+        final Long freePes = expectedFreePes.remove(vm.getId());
+        if (freePes == null) {
+            return;
+        }
+        changedVms.remove(vm.getId());
+        // whatever is still executing on the vm goes away with it
+        runningCloudlets -= vm.getCloudletScheduler().getCloudletExecList().size();
+        allocatedPes -= vm.getPesNumber();
+        totalExpectedFreePes -= freePes;
+        removeCount(freePes);
+    }
+
+    private void applyChanges() {
+        if (changedVms.isEmpty()) {
+            return;
+        }
+        for (Vm vm : changedVms.values()) {
+            final long freePes = vm.getExpectedFreePesNumber();
+            final long previous = expectedFreePes.put(vm.getId(), freePes);
+            if (previous != freePes) {
+                totalExpectedFreePes += freePes - previous;
+                removeCount(previous);
+                expectedFreePesCounts.merge(freePes, 1, Integer::sum);
+            }
+        }
+        changedVms.clear();
+    }
+
+    private void removeCount(final long freePes) {
+        expectedFreePesCounts.computeIfPresent(freePes,
+                (pes, count) -> count > 1 ? count - 1 : null);
+    }
+}
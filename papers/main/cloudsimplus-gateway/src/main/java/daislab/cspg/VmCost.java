@@ -1,25 +1,39 @@
 package daislab.cspg;
 
-import lombok.Getter;
 import org.cloudsimplus.vms.Vm;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
 
 /*
  * Class to calculate the infrastructure cost. We need it to calculate the agent's reward. TODO: I
  * should also extend this to HostCost in order to measure the cost of having many hosts running. So
  * that I can experiment with logics that try to fit as many vms as a host can fit, so that the
  * infrastructure cost does not rise because of many hosts running.
+ *
+ * The cost is kept as a ledger instead of being recomputed from a list of all created vms: the
+ * number of running vms of each type is updated by the host allocation and deallocation listeners
+ * of the vms, and if payForFullHour is true, a stopped vm is moved to a queue ordered by the time
+ * its last paid hour expires, from where it is dropped once the clock passes that time. Vms stop in
+ * simulation time order, so appending to the queue keeps it ordered.
  */
 public class VmCost {
 
     private final double perIterationSmallVmCost;
+    private final double iterationsInHour;
+    private final SimulationSettings settings;
 
-    @Getter
-    private List<Vm> createdVms = new ArrayList<>();
-    private double iterationsInHour;
-    private SimulationSettings settings;
+    private final int[] sizeMultipliers = new int[SimulationSettings.VM_TYPES.length];
+    private final int[] runningVmsByType = new int[SimulationSettings.VM_TYPES.length];
+    private final int[] stoppedVmsByType = new int[SimulationSettings.VM_TYPES.length];
+    // vms that were added and have not stopped, whether they have started or not, by id (the
+    // hash code of a vm changes when it is submitted to a broker)
+    private final Map<Long, TrackedVm> trackedVms = new HashMap<>();
+    // stopped vms we still pay for, ordered by the time their last hour expires
+    private final Deque<StoppedVm> stoppedVms = new ArrayDeque<>();
 
     public VmCost(final SimulationSettings settings) {
         this.settings = settings;
@@ -29,45 +43,109 @@ public class VmCost {
         // timestepInterval is the time in seconds between each iteration
         iterationsInHour = 3600 / settings.getTimestepInterval();
         perIterationSmallVmCost = perSecondVMCost * settings.getTimestepInterval();
+
+        for (int i = 0; i < sizeMultipliers.length; i++) {
+            sizeMultipliers[i] = settings.getSizeMultiplier(SimulationSettings.VM_TYPES[i]);
+        }
     }
 
-    public void addNewVmToList(final Vm vm) {
-        createdVms.add(vm);
+    /**
+     * Starts tracking the cost of a vm. The vm is paid for from the moment it is placed on a host.
+     *
+     * @param vm   the vm to track
+     * @param type the type of the vm, one of {@link SimulationSettings#VM_TYPES}
+     */
+    public void addNewVm(final Vm vm, final String type) {
+        final TrackedVm trackedVm = new TrackedVm(typeIndex(type));
+        trackedVms.put(vm.getId(), trackedVm);
+        vm.addOnHostAllocationListener(info -> onVmStarted(vm));
+        vm.addOnHostDeallocationListener(info -> onVmStopped(vm));
     }
 
     public void clear() {
-        createdVms.clear();
+        trackedVms.clear();
+        stoppedVms.clear();
+        Arrays.fill(runningVmsByType, 0);
+        Arrays.fill(stoppedVmsByType, 0);
     }
 
-    // Why calculate this list at each iteration and
-    // do not have simply a counter for each type?
-    // Maybe because if payForFullHour is true, we want to keep counting a vm
-    // which has been created but stopped.
     public double getVMCostPerIteration(final double clock) {
+        // vm stopped - we continue to pay for the full hour if needed
+        while (!stoppedVms.isEmpty() && clock > stoppedVms.peekFirst().expiresAt) {
+            stoppedVmsByType[stoppedVms.pollFirst().type]--;
+        }
         double totalCost = 0;
-        List<Vm> toRemove = new ArrayList<>();
-        for (Vm vm : createdVms) {
-            // check if the vm is started
-            double multiplier = settings.getSizeMultiplier(vm.getDescription());
-            final double perIterationVMCost = perIterationSmallVmCost * multiplier;
-            if (vm.getStartTime() > -1 && vm.getFinishTime() > -1) {
-                // vm stopped - we continue to pay for the full hour if needed
-                if (settings.isPayingForTheFullHour()
-                        && (clock <= vm.getFinishTime() + iterationsInHour)) {
-                    totalCost += perIterationVMCost;
-                } else {
-                    toRemove.add(vm);
-                }
-            } else if (vm.getStartTime() > -1) {
-                // vm still running - just add the cost
-                totalCost += perIterationVMCost;
-            }
+        for (int i = 0; i < sizeMultipliers.length; i++) {
+            totalCost += perIterationSmallVmCost * sizeMultipliers[i]
+                    * (runningVmsByType[i] + stoppedVmsByType[i]);
         }
-        createdVms.removeAll(toRemove);
         return totalCost;
     }
 
-    public void removeVmFromList(final Vm vm) {
-        createdVms.remove(vm);
+    /**
+     * Stops tracking the cost of a vm right away, without paying for the rest of its hour.
+     */
+    public void removeVm(final Vm vm) {
+        final TrackedVm trackedVm = trackedVms.remove(vm.getId());
+        if (trackedVm != null && trackedVm.running) {
+            runningVmsByType[trackedVm.type]--;
+        }
+    }
+
+    /**
+     * @return the number of vms the cost is currently kept for: the ones that were added and have
+     *         not stopped, and the stopped ones whose last paid hour has not expired yet
+     */
+    public int getTrackedVmCount() {
+        return trackedVms.size() + stoppedVms.size();
+    }
+
+    private void onVmStarted(final Vm vm) {
+        final TrackedVm trackedVm = trackedVms.get(vm.getId());
+        if (trackedVm != null && !trackedVm.running) {
+            trackedVm.running = true;
+            runningVmsByType[trackedVm.type]++;
+        }
+    }
+
+    private void onVmStopped(final Vm vm) {
+        final TrackedVm trackedVm = trackedVms.remove(vm.getId());
+        if (trackedVm == null || !trackedVm.running) {
+            return;
+        }
+        runningVmsByType[trackedVm.type]--;
+        if (settings.isPayingForTheFullHour()) {
+            stoppedVms.addLast(new StoppedVm(vm.getFinishTime() + iterationsInHour,
+                    trackedVm.type));
+            stoppedVmsByType[trackedVm.type]++;
+        }
+    }
+
+    private static int typeIndex(final String type) {
+        for (int i = 0; i < SimulationSettings.VM_TYPES.length; i++) {
+            if (SimulationSettings.VM_TYPES[i].equals(type)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unexpected value: " + type);
+    }
+
+    private static final class TrackedVm {
+        private final int type;
+        private boolean running;
+
+        private TrackedVm(final int type) {
+            this.type = type;
+        }
+    }
+
+    private static final class StoppedVm {
+        private final double expiresAt;
+        private final int type;
+
+        private StoppedVm(final double expiresAt, final int type) {
+            this.expiresAt = expiresAt;
+            this.type = type;
+        }
     }
 }
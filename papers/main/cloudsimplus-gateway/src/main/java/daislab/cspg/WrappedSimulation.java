@@ -3,9 +3,14 @@ package daislab.cspg;
 import org.cloudsimplus.hosts.Host;
 import org.cloudsimplus.vms.Vm;
 import org.cloudsimplus.cloudlets.Cloudlet;
-import org.cloudsimplus.schedulers.cloudlet.CloudletScheduler;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -14,18 +19,44 @@ import org.slf4j.LoggerFactory;
 public class WrappedSimulation {
     private final Logger LOGGER = LoggerFactory.getLogger(WrappedSimulation.class.getSimpleName());
 
-    private final List<CloudletDescriptor> initialJobsDescriptors;
+    // builds the proxies of upcoming episodes for simulations with prefetch_reset
+    private static final AtomicInteger PREFETCH_THREADS = new AtomicInteger();
+    private static final ExecutorService PREFETCH_EXECUTOR = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2), runnable -> {
+                Thread thread = new Thread(runnable,
+                        "proxy-prefetch-" + PREFETCH_THREADS.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    // may be shared with other simulations until the first append copies it
+    private List<CloudletDescriptor> initialJobsDescriptors;
+    private boolean ownsJobs;
 
     private final String identifier;
     private final SimulationSettings settings;
+    private final Set<StepInfoField> defaultInfoFields;
+    private final StepMetrics metrics = new StepMetrics();
+    // null unless diagnostics_dir is set
+    private final DiagnosticTrace diagnosticTrace;
     private CloudSimProxy cloudSimProxy;
+    // the proxy of the next episode, built in the background when prefetching
+    private CompletableFuture<CloudSimProxy> nextProxy;
     private int currentStep;
+    private int episode;
+    // for readers on other threads, such as the metrics endpoint; counting the future events
+    // scans the whole queue, so it is only recounted at the first step or reset after a read
+    private volatile long futureEvents;
+    private volatile boolean futureEventsRead = true;
 
     public WrappedSimulation(final String identifier, final SimulationSettings settings,
             final List<CloudletDescriptor> jobs) {
         this.identifier = identifier;
         this.settings = settings;
+        this.defaultInfoFields = StepInfoField.defaults(settings);
         initialJobsDescriptors = jobs;
+        this.diagnosticTrace = settings.getDiagnosticsDir().isEmpty() ? null
+                : DiagnosticTrace.open(settings.getDiagnosticsDir(), identifier);
         LOGGER.info("Creating simulation: {}", identifier);
     }
 
@@ -39,6 +70,10 @@ public class WrappedSimulation {
 
     public void close() {
         LOGGER.info("Terminating simulation...");
+        discardNextProxy();
+        if (diagnosticTrace != null) {
+            diagnosticTrace.flush();
+        }
         if (cloudSimProxy.isRunning()) {
             cloudSimProxy.terminate();
         }
@@ -52,29 +87,88 @@ public class WrappedSimulation {
     }
 
     public SimulationResetResult reset(final long seed) {
+        return reset(seed, defaultInfoFields);
+    }
+
+    public SimulationResetResult reset(final long seed, final Set<StepInfoField> infoFields) {
         // ignoring seed for now
         LOGGER.info("Reset initiated");
+        final long resetStart = TimeMeasurement.startTiming();
+        final SimulationEvents.Reset resetEvent = new SimulationEvents.Reset();
+        resetEvent.begin();
         LOGGER.info("job count: " + initialJobsDescriptors.size());
 
         resetCurrentStep();
+        episode++;
 
-        List<Cloudlet> cloudlets = initialJobsDescriptors.stream()
-                .map(CloudletDescriptor::toCloudlet).collect(Collectors.toList());
-        cloudSimProxy = new CloudSimProxy(settings, cloudlets);
+        if (nextProxy != null) {
+            cloudSimProxy = nextProxy.join();
+            nextProxy = null;
+            LOGGER.debug("Using the prefetched proxy");
+        } else {
+            cloudSimProxy = createProxy(initialJobsDescriptors);
+        }
+        if (settings.isPrefetchReset()) {
+            prefetchNextProxy();
+        }
 
-        SimulationStepInfo info = new SimulationStepInfo();
+        SimulationStepInfo info = new SimulationStepInfo(infoFields);
 
         Observation observation =
                 new Observation(getInfrastructureObservation(), getJobCoresWaitingObservation());
 
-        return new SimulationResetResult(observation, info);
+        sampleFutureEvents();
+        metrics.recordSince(StepMetrics.Phase.RESET, resetStart);
+        commitEvent(resetEvent);
+        return new SimulationResetResult(observation, info, episode);
+    }
+
+    private CloudSimProxy createProxy(final List<CloudletDescriptor> jobs) {
+        List<Cloudlet> cloudlets = jobs.stream()
+                .map(CloudletDescriptor::toCloudlet).collect(Collectors.toList());
+        return new CloudSimProxy(settings, cloudlets, metrics);
+    }
+
+    /*
+     * Starts building the proxy of the next episode while this one runs, so the next reset only
+     * swaps it in. A proxy is self-contained (its own CloudSimPlus instance and cloudlets), so it
+     * can be built on another thread and handed over through the future.
+     */
+    private void prefetchNextProxy() {
+        final List<CloudletDescriptor> jobs = initialJobsDescriptors;
+        nextProxy = CompletableFuture.supplyAsync(() -> createProxy(jobs), PREFETCH_EXECUTOR);
+    }
+
+    private void discardNextProxy() {
+        if (nextProxy == null) {
+            return;
+        }
+        nextProxy.thenAccept(proxy -> {
+            if (proxy.isRunning()) {
+                proxy.terminate();
+            }
+        });
+        nextProxy = null;
     }
 
     public SimulationStepResult step(final int[] action) {
+        return step(action, defaultInfoFields);
+    }
+
+    /**
+     * Executes one step. Only the step info fields in infoFields are computed; reward terms
+     * whose coefficient is zero are skipped as well.
+     */
+    public SimulationStepResult step(final int[] action, final Set<StepInfoField> infoFields) {
         validateSimulationReset();
         currentStep++;
+        final long stepStart = TimeMeasurement.startTiming();
+        final SimulationEvents.Step stepEvent = new SimulationEvents.Step();
+        stepEvent.begin();
 
         LOGGER.info("Step {} starting", currentStep);
+        final SimulationEvents.Action actionEvent = new SimulationEvents.Action();
+        actionEvent.begin();
         int[] actionResult = switch (settings.getVmAllocationPolicy()) {
             case "rl", "fromfile" -> executeCustomAction(action);
             case "rule-based" -> {
@@ -86,35 +180,105 @@ public class WrappedSimulation {
         };
 
         final boolean isValid = actionResult[0] != -1;
+        metrics.recordSince(StepMetrics.Phase.ACTION, stepStart);
+        commitEvent(actionEvent);
 
+        final SimulationEvents.Timestep timestepEvent = new SimulationEvents.Timestep();
+        timestepEvent.begin();
         cloudSimProxy.runOneTimestep();
+        commitEvent(timestepEvent);
 
         boolean terminated = !cloudSimProxy.isRunning();
         boolean truncated = !terminated && (currentStep >= settings.getMaxEpisodeLength());
 
-        double[] rewards = calculateReward(isValid);
+        long phaseStart = TimeMeasurement.startTiming();
+        final SimulationEvents.Reward rewardEvent = new SimulationEvents.Reward();
+        rewardEvent.begin();
+        final boolean needsUnutilizedVmCoreRatio = settings.getRewardUnutilizedVmCoresCoef() != 0
+                || infoFields.contains(StepInfoField.UNUTILIZED_VM_CORE_RATIO);
+        final double unutilizedVmCoreRatio =
+                needsUnutilizedVmCoreRatio ? getUnutilizedVmCoreRatio() : 0.0;
+        double[] rewards = calculateReward(isValid, unutilizedVmCoreRatio);
+        metrics.recordSince(StepMetrics.Phase.REWARD, phaseStart);
+        commitEvent(rewardEvent);
 
         LOGGER.info("Step {} finished", currentStep);
         LOGGER.debug("Terminated: {}, Truncated: {}", terminated, truncated);
-        LOGGER.debug("Length of future events queue: {}", cloudSimProxy.getNumberOfFutureEvents());
+        sampleFutureEvents();
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Length of future events queue: {}",
+                    cloudSimProxy.getNumberOfFutureEvents());
+        }
         if (terminated || truncated) {
             LOGGER.info("Simulation ended. Jobs finished: {}/{}",
                     cloudSimProxy.getBroker().getCloudletFinishedList().size(),
                     initialJobsDescriptors.size());
         }
 
-        final int[] treeArray = settings.isSendObservationTreeArray()
-                ? getInfrastructureObservation()
+        // the tree array in the info is the same array as the observation, built once
+        phaseStart = TimeMeasurement.startTiming();
+        final SimulationEvents.Observation observationEvent = new SimulationEvents.Observation();
+        observationEvent.begin();
+        final int[] infrastructureObservation = getInfrastructureObservation();
+        final int[] treeArray = infoFields.contains(StepInfoField.OBSERVATION_TREE_ARRAY)
+                ? infrastructureObservation
                 : new int[0];
-        SimulationStepInfo info = new SimulationStepInfo(rewards,
-                cloudSimProxy.getFinishedJobsWaitTimeLastTimestep(), getUnutilizedVmCoreRatio(),
-                treeArray, actionResult[0], actionResult[1],
-                settings.isSendObservationTreeArray());
+        // copied, since the proxy clears its list on the next timestep and a result may
+        // outlive it (e.g. in a columnar batch that steps the same simulation twice)
+        final List<Double> jobWaitTime = infoFields.contains(StepInfoField.JOB_WAIT_TIME)
+                ? List.copyOf(cloudSimProxy.getFinishedJobsWaitTimeLastTimestep())
+                : List.of();
+        SimulationStepInfo info = new SimulationStepInfo(rewards, jobWaitTime,
+                unutilizedVmCoreRatio, treeArray, actionResult[0], actionResult[1], infoFields);
 
         Observation observation =
-                new Observation(getInfrastructureObservation(), getJobCoresWaitingObservation());
+                new Observation(infrastructureObservation, getJobCoresWaitingObservation());
+        metrics.recordSince(StepMetrics.Phase.OBSERVATION, phaseStart);
+        commitEvent(observationEvent);
+
+        metrics.recordSince(StepMetrics.Phase.STEP, stepStart);
+        commitEvent(stepEvent);
+        if (diagnosticTrace != null) {
+            diagnosticTrace.record(episode, currentStep,
+                    TimeMeasurement.calculateElapsedTime(stepStart), terminated || truncated,
+                    cloudSimProxy);
+        }
+        return new SimulationStepResult(observation, rewards[0], terminated, truncated, info,
+                null, episode);
+    }
+
+    /**
+     * Executes one step and, when autoReset is set and the step ends the episode, resets the
+     * simulation right away. The result then also carries the first observation of the next
+     * episode, which saves the client a separate reset call.
+     */
+    public SimulationStepResult step(final int[] action, final Set<StepInfoField> infoFields,
+            final boolean autoReset) {
+        final SimulationStepResult result = step(action, infoFields);
+        if (!autoReset || !(result.isTerminated() || result.isTruncated())) {
+            return result;
+        }
+        LOGGER.info("Episode {} ended, resetting automatically", episode);
+        final Observation resetObservation = reset(0, infoFields).getObservation();
+        return new SimulationStepResult(result.getObservation(), result.getReward(),
+                result.isTerminated(), result.isTruncated(), result.getInfo(), resetObservation,
+                result.getEpisode());
+    }
 
-        return new SimulationStepResult(observation, rewards[0], terminated, truncated, info);
+    /**
+     * Ends a flight recorder event and commits it with the current step, jobs waiting and VMs
+     * running, if a recording wants it.
+     */
+    void commitEvent(final SimulationEvents.PhaseEvent event) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.simId = identifier;
+        event.step = currentStep;
+        event.jobsWaiting = cloudSimProxy.getNotYetRunningJobsCount();
+        event.vmsRunning = cloudSimProxy.getBroker().getVmExecList().size();
+        event.commit();
     }
 
     public String render() {
@@ -122,36 +286,18 @@ public class WrappedSimulation {
     }
 
     private double getUnutilizedVmCoreRatio() {
-        List<Vm> vmList = cloudSimProxy.getBroker().getVmExecList();
-        Long unutilizedVmCores = getUnutilizedVmCores(vmList);
-        Long runningVmCores = getRunningVmCores(vmList);
+        final long unutilizedVmCores = cloudSimProxy.getUnutilizedVmCores();
+        final long runningVmCores = cloudSimProxy.getAllocatedCores();
 
         return runningVmCores > 0 ? ((double) unutilizedVmCores / runningVmCores) : 0.0;
     }
 
-    private Long getUnutilizedVmCores(List<Vm> vmList) {
-        Long unutilizedVmCores =
-                vmList.parallelStream().map(Vm::getExpectedFreePesNumber).reduce(0L, Long::sum);
-
-        return unutilizedVmCores;
-    }
-
-    private Long getRunningVmCores(List<Vm> vmList) {
-        Long runningVmCores = vmList.parallelStream().map(Vm::getPesNumber).reduce(0L, Long::sum);
-
-        return runningVmCores;
-    }
-
     private Long getRunningVmsCount() {
-        return cloudSimProxy.getBroker().getVmExecList().stream().count();
+        return (long) cloudSimProxy.getBroker().getVmExecList().size();
     }
 
     private Long getRunningCloudletsCount() {
-        List<Vm> vmList = cloudSimProxy.getBroker().getVmExecList();
-
-        Long runningCloudletCount = vmList.parallelStream().map(Vm::getCloudletScheduler)
-                .map(CloudletScheduler::getCloudletExecList).mapToLong(List::size).sum();
-        return runningCloudletCount;
+        return cloudSimProxy.getRunningCloudletsCount();
     }
 
     private int[] executeCustomAction(final int[] action) {
@@ -265,7 +411,7 @@ public class WrappedSimulation {
         return treeArray;
     }
 
-    private double[] calculateReward(final boolean isValid) {
+    private double[] calculateReward(final boolean isValid, final double unutilizedVmCoreRatio) {
         double[] rewards = new double[5];
         /*
          * reward is the negative cost of running the infrastructure minus any penalties from jobs
@@ -277,9 +423,11 @@ public class WrappedSimulation {
         final double unutilizedVmCoresCoef = settings.getRewardUnutilizedVmCoresCoef();
         final double invalidCoef = settings.getRewardInvalidCoef();
 
-        final double jobWaitReward = -jobWaitCoef * getWaitingJobsRatio();
-        final double runningVmCoresReward = -runningVmCoresCoef * getHostCoresAllocatedToVmsRatio();
-        final double unutilizedVmCoresReward = -unutilizedVmCoresCoef * getUnutilizedVmCoreRatio();
+        // terms with a zero coefficient are not computed at all
+        final double jobWaitReward = jobWaitCoef == 0 ? 0 : -jobWaitCoef * getWaitingJobsRatio();
+        final double runningVmCoresReward = runningVmCoresCoef == 0 ? 0
+                : -runningVmCoresCoef * getHostCoresAllocatedToVmsRatio();
+        final double unutilizedVmCoresReward = -unutilizedVmCoresCoef * unutilizedVmCoreRatio;
         final double invalidReward = -invalidCoef * (isValid ? 0 : 1);
 
         double totalReward = 0;
@@ -292,11 +440,11 @@ public class WrappedSimulation {
             LOGGER.error(identifier + ": Invalid VM allocation policy");
         }
 
-        LOGGER.info("totalReward: " + totalReward);
-        LOGGER.info("jobWaitReward: " + jobWaitReward);
-        LOGGER.info("runningVmCoresReward: " + runningVmCoresReward);
-        LOGGER.info("unutilizedVmCoresReward: " + unutilizedVmCoresReward);
-        LOGGER.info("invalidReward: " + invalidReward);
+        LOGGER.info("totalReward: {}", totalReward);
+        LOGGER.info("jobWaitReward: {}", jobWaitReward);
+        LOGGER.info("runningVmCoresReward: {}", runningVmCoresReward);
+        LOGGER.info("unutilizedVmCoresReward: {}", unutilizedVmCoresReward);
+        LOGGER.info("invalidReward: {}", invalidReward);
 
         rewards[0] = totalReward;
         rewards[1] = jobWaitReward;
@@ -310,6 +458,38 @@ public class WrappedSimulation {
         return rewards;
     }
 
+    /**
+     * Appends jobs to the job store. They are part of every episode from the next reset on.
+     *
+     * @return the number of jobs in the store
+     */
+    public int appendJobs(final List<CloudletDescriptor> jobs) {
+        final boolean prefetched = nextProxy != null;
+        if (prefetched) {
+            // the prefetched proxy misses the new jobs, and its builder may still be reading
+            // the current list, so that list is left alone
+            discardNextProxy();
+            ownsJobs = false;
+        }
+        if (!ownsJobs) {
+            initialJobsDescriptors = new ArrayList<>(initialJobsDescriptors);
+            ownsJobs = true;
+        }
+        initialJobsDescriptors.addAll(jobs);
+        if (prefetched) {
+            prefetchNextProxy();
+        }
+        return initialJobsDescriptors.size();
+    }
+
+    public int getJobCount() {
+        return initialJobsDescriptors.size();
+    }
+
+    public int getEpisode() {
+        return episode;
+    }
+
     public int getCurrentStep() {
         return currentStep;
     }
@@ -322,6 +502,38 @@ public class WrappedSimulation {
         return identifier;
     }
 
+    public SimulationSettings getSettings() {
+        return settings;
+    }
+
+    public Set<StepInfoField> getDefaultInfoFields() {
+        return defaultInfoFields;
+    }
+
+    /**
+     * The latency histograms of the simulation. They are thread-safe, so they can be read from
+     * any thread.
+     */
+    public StepMetrics getMetrics() {
+        return metrics;
+    }
+
+    private void sampleFutureEvents() {
+        if (futureEventsRead) {
+            futureEventsRead = false;
+            futureEvents = cloudSimProxy.getNumberOfFutureEvents();
+        }
+    }
+
+    /**
+     * The future event queue length as of the first step or reset after the previous call, so
+     * that the queue is only counted as often as it is read. Safe to read from any thread.
+     */
+    public long getFutureEvents() {
+        futureEventsRead = true;
+        return futureEvents;
+    }
+
     public double clock() {
         return cloudSimProxy.clock();
     }
@@ -0,0 +1,261 @@
+package daislab.cspg;
+
+import com.google.protobuf.ByteString;
+import daislab.cspg.grpc.BatchStepRequest;
+import daislab.cspg.grpc.ColumnarBatchStepResponse;
+import daislab.cspg.grpc.ObservationDelta;
+import daislab.cspg.grpc.ReplayRequest;
+import daislab.cspg.grpc.ReplayResponse;
+import daislab.cspg.grpc.ResetRequest;
+import daislab.cspg.grpc.ResetResult;
+import daislab.cspg.grpc.StepRequest;
+import daislab.cspg.grpc.StepResult;
+import io.grpc.Status;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Map;
+
+import static daislab.cspg.SimulationFixtures.Recorder;
+import static daislab.cspg.SimulationFixtures.action;
+import static daislab.cspg.SimulationFixtures.apply;
+import static daislab.cspg.SimulationFixtures.bit;
+import static daislab.cspg.SimulationFixtures.create;
+import static daislab.cspg.SimulationFixtures.ints;
+import static daislab.cspg.SimulationFixtures.jobsJson;
+import static daislab.cspg.SimulationFixtures.params;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives {@link CloudSimGrpcService} the way a client does and checks what comes back against
+ * a twin simulation that receives the same actions over plain step calls.
+ */
+class CloudSimGrpcServiceTest {
+
+    private static final long SEED = 7;
+
+    private final CloudSimGrpcService service = new CloudSimGrpcService();
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    void deltaObservationsStayCorrectAroundColumnarSteps() {
+        final Map<String, Object> deltaParams = params();
+        deltaParams.put("observation_keyframe_interval", 1000);
+        final String deltaSim = create(service, deltaParams, jobsJson(30));
+        final String plainSim = create(service, params(), jobsJson(30));
+
+        int[] rebuilt = apply(null,
+                reset(deltaSim).getObservation().getInfrastructureObservationDelta());
+        assertArrayEquals(observation(reset(plainSim)), rebuilt);
+
+        boolean afterColumnar = false;
+        int patches = 0;
+        for (int step = 0; step < 40; step++) {
+            final int[] expected = observation(step(plainSim, action(step)));
+            if (step % 5 == 2 || step % 5 == 3) {
+                // a columnar step carries the whole observation, which replaces the base
+                final ColumnarBatchStepResponse batch = stepColumnar(deltaSim, action(step));
+                final int[] offsets = ints(batch.getObservationOffsets());
+                rebuilt = Arrays.copyOfRange(ints(batch.getObservations()), offsets[0],
+                        offsets[1]);
+                afterColumnar = true;
+            } else {
+                final ObservationDelta delta = step(deltaSim, action(step))
+                        .getObservation().getInfrastructureObservationDelta();
+                if (afterColumnar) {
+                    assertTrue(delta.getKeyframe(), "step " + step);
+                } else if (!delta.getKeyframe()) {
+                    patches++;
+                }
+                rebuilt = apply(rebuilt, delta);
+                afterColumnar = false;
+            }
+            assertArrayEquals(expected, rebuilt, "step " + step);
+        }
+        assertTrue(patches > 0);
+    }
+
+    @Test
+    void forcedKeyframeIsSentWhole() {
+        final Map<String, Object> deltaParams = params();
+        deltaParams.put("observation_keyframe_interval", 1000);
+        final String deltaSim = create(service, deltaParams, jobsJson(10));
+        reset(deltaSim);
+
+        final Recorder<StepResult> stepped = new Recorder<>();
+        service.step(StepRequest.newBuilder().setSimId(deltaSim).setForceKeyframe(true)
+                .addAllAction(Arrays.stream(action(0)).boxed().toList()).build(), stepped);
+        final ObservationDelta delta =
+                stepped.single().getObservation().getInfrastructureObservationDelta();
+
+        assertTrue(delta.getKeyframe());
+        assertEquals(delta.getLength(), delta.getValuesCount());
+        assertFalse(step(deltaSim, action(1)).getObservation()
+                .getInfrastructureObservationDelta().getKeyframe());
+    }
+
+    @Test
+    void autoResetReturnsTheFinalAndTheNextObservation() {
+        final Map<String, Object> shortEpisodes = params();
+        shortEpisodes.put("max_episode_length", 5);
+        final String sim = create(service, shortEpisodes, jobsJson(20));
+        final String twin = create(service, shortEpisodes, jobsJson(20));
+        assertEquals(1, reset(sim).getEpisode());
+        reset(twin);
+
+        for (int episode = 1; episode <= 3; episode++) {
+            for (int step = 1; step <= 5; step++) {
+                final int[] action = action(step);
+                final StepResult twinResult = step(twin, action);
+                final StepResult result = step(sim, action, true);
+
+                assertEquals(episode, result.getEpisode());
+                assertArrayEquals(observation(twinResult), observation(result));
+                assertEquals(twinResult.getReward(), result.getReward());
+                if (step < 5) {
+                    assertFalse(result.getTruncated());
+                    assertFalse(result.hasResetObservation());
+                    continue;
+                }
+                // the episode ends on its fifth step and the next one starts right away
+                assertTrue(result.getTruncated());
+                assertTrue(result.hasResetObservation());
+                final ResetResult twinReset = reset(twin);
+                assertEquals(episode + 1, twinReset.getEpisode());
+                assertArrayEquals(observation(twinReset),
+                        result.getResetObservation().getInfrastructureObservationList().stream()
+                                .mapToInt(Integer::intValue).toArray());
+                assertEquals(twinReset.getObservation().getJobCoresWaitingObservation(),
+                        result.getResetObservation().getJobCoresWaitingObservation());
+            }
+        }
+    }
+
+    @Test
+    void autoResetInAColumnarBatch() {
+        final Map<String, Object> shortEpisodes = params();
+        shortEpisodes.put("max_episode_length", 2);
+        final String sim = create(service, shortEpisodes, jobsJson(20));
+        final String twin = create(service, shortEpisodes, jobsJson(20));
+        reset(sim);
+        reset(twin);
+
+        // the second item ends the episode, the third one is the first step of the next
+        final BatchStepRequest.Builder request = BatchStepRequest.newBuilder().setAutoReset(true);
+        for (int i = 0; i < 3; i++) {
+            request.addItems(BatchStepRequest.StepItem.newBuilder().setSimId(sim)
+                    .addAllAction(Arrays.stream(action(0)).boxed().toList()));
+        }
+        final Recorder<ColumnarBatchStepResponse> response = new Recorder<>();
+        service.batchStepColumnar(request.build(), response);
+        final ColumnarBatchStepResponse batch = response.single();
+
+        step(twin, action(0));
+        step(twin, action(0));
+        final int[] twinReset = observation(reset(twin));
+        assertArrayEquals(new int[] {1, 1, 2}, ints(batch.getEpisodes()));
+        assertFalse(bit(batch.getReset(), 0));
+        assertTrue(bit(batch.getReset(), 1));
+        assertTrue(bit(batch.getTruncated(), 1));
+        assertFalse(bit(batch.getReset(), 2));
+        assertFalse(bit(batch.getTruncated(), 2));
+        final int[] offsets = ints(batch.getResetObservationOffsets());
+        assertArrayEquals(new int[] {0, 0, twinReset.length, twinReset.length}, offsets);
+        assertArrayEquals(twinReset, ints(batch.getResetObservations()));
+    }
+
+    @Test
+    void stepAfterAReplayIsAKeyframe() {
+        final Map<String, Object> deltaParams = params();
+        deltaParams.put("observation_keyframe_interval", 1000);
+        final String deltaSim = create(service, deltaParams, jobsJson(30));
+        final String plainSim = create(service, params(), jobsJson(30));
+        int[] rebuilt = apply(null,
+                reset(deltaSim).getObservation().getInfrastructureObservationDelta());
+        reset(plainSim);
+        rebuilt = apply(rebuilt,
+                step(deltaSim, action(0)).getObservation().getInfrastructureObservationDelta());
+        step(plainSim, action(0));
+
+        // the replay continues the episode, it does not start with a reset
+        final ByteBuffer actions =
+                ByteBuffer.allocate(3 * 4 * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int step = 1; step <= 3; step++) {
+            for (int value : action(step)) {
+                actions.putInt(value);
+            }
+            step(plainSim, action(step));
+        }
+        final Recorder<ReplayResponse> replayed = new Recorder<>();
+        service.replayActions(ReplayRequest.newBuilder().setSimId(deltaSim)
+                .setActions(ByteString.copyFrom(actions.array())).build(), replayed);
+        assertEquals(3, replayed.single().getSteps());
+
+        final ObservationDelta delta =
+                step(deltaSim, action(4)).getObservation().getInfrastructureObservationDelta();
+        assertTrue(delta.getKeyframe());
+        rebuilt = apply(rebuilt, delta);
+        assertArrayEquals(observation(step(plainSim, action(4))), rebuilt);
+    }
+
+    @Test
+    void replayNeedsAnRlSimulation() {
+        final Map<String, Object> fromFile = params();
+        fromFile.put("vm_allocation_policy", "fromfile");
+        final String sim = create(service, fromFile, jobsJson(5));
+        reset(sim);
+
+        final Recorder<ReplayResponse> replayed = new Recorder<>();
+        service.replayActions(ReplayRequest.newBuilder().setSimId(sim)
+                .setActions(ByteString.copyFrom(new byte[16])).build(), replayed);
+
+        assertEquals(Status.Code.FAILED_PRECONDITION,
+                Status.fromThrowable(replayed.error).getCode());
+    }
+
+    private ResetResult reset(final String simId) {
+        final Recorder<ResetResult> result = new Recorder<>();
+        service.reset(ResetRequest.newBuilder().setSimId(simId).setSeed(SEED).build(), result);
+        return result.single();
+    }
+
+    private StepResult step(final String simId, final int[] action) {
+        return step(simId, action, false);
+    }
+
+    private StepResult step(final String simId, final int[] action, final boolean autoReset) {
+        final Recorder<StepResult> result = new Recorder<>();
+        service.step(StepRequest.newBuilder().setSimId(simId).setAutoReset(autoReset)
+                .addAllAction(Arrays.stream(action).boxed().toList()).build(), result);
+        return result.single();
+    }
+
+    private ColumnarBatchStepResponse stepColumnar(final String simId, final int[] action) {
+        final Recorder<ColumnarBatchStepResponse> result = new Recorder<>();
+        service.batchStepColumnar(BatchStepRequest.newBuilder()
+                .addItems(BatchStepRequest.StepItem.newBuilder().setSimId(simId)
+                        .addAllAction(Arrays.stream(action).boxed().toList()))
+                .build(), result);
+        return result.single();
+    }
+
+    private static int[] observation(final ResetResult result) {
+        return result.getObservation().getInfrastructureObservationList().stream()
+                .mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int[] observation(final StepResult result) {
+        return result.getObservation().getInfrastructureObservationList().stream()
+                .mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,200 @@
+package daislab.cspg;
+
+import org.cloudsimplus.cloudlets.Cloudlet;
+import org.cloudsimplus.core.CloudSimTag;
+import org.cloudsimplus.vms.Vm;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks which jobs {@link CloudSimProxy#getJobsToSubmitAtThisTimestep} hands out: the jobs
+ * that arrived by the target time in arrival order, preceded by the jobs put back by a
+ * destroyed vm. Also checks the job counts and vm capacity the proxy keeps up to date against
+ * a recount of the job statuses and the running vms, and that the clock keeps advancing one
+ * timestep at a time while no job is left to run.
+ */
+class CloudSimProxyTest {
+
+    @Test
+    void jobsArrivingOutOfTraceOrderAreDueInArrivalOrder() {
+        // trace order is not arrival order; jobs 1 and 3 arrive together
+        final CloudSimProxy proxy = proxy(List.of(
+                job(0, 5), job(1, 1), job(2, 3), job(3, 1), job(4, 10)));
+
+        assertEquals(List.of(), ids(proxy.getJobsToSubmitAtThisTimestep(0.5)));
+        assertEquals(List.of(1L, 3L), ids(proxy.getJobsToSubmitAtThisTimestep(1)));
+        assertEquals(List.of(1L, 3L, 2L, 0L, 4L),
+                ids(proxy.getJobsToSubmitAtThisTimestep(10)));
+        assertEquals(5, proxy.getJobQueueSize());
+    }
+
+    @Test
+    void exactlyTheJobsArrivedByTheTargetTimeAreDue() {
+        final CloudSimProxy proxy = proxy(List.of(job(0, 2), job(1, 3), job(2, 4)));
+
+        assertEquals(List.of(0L), ids(proxy.getJobsToSubmitAtThisTimestep(2)));
+        assertEquals(List.of(0L), ids(proxy.getJobsToSubmitAtThisTimestep(2.999)));
+        // a job arriving exactly at the target time is due
+        assertEquals(List.of(0L, 1L), ids(proxy.getJobsToSubmitAtThisTimestep(3)));
+        // asking again for the same time hands out the same jobs, nothing more
+        assertEquals(List.of(0L, 1L), ids(proxy.getJobsToSubmitAtThisTimestep(3)));
+        assertEquals(3, proxy.getJobQueueSize());
+    }
+
+    @Test
+    void jobsOfADestroyedVmAreDueFirstInArrivalOrder() {
+        // jobs 7 and 3 arrive together, 5 later; one small vm runs both of the first two
+        final CloudSimProxy proxy = proxy(List.of(job(7, 0), job(3, 0), job(5, 4)));
+        proxy.runOneTimestep();
+        proxy.runOneTimestep();
+        assertEquals(2, proxy.getRunningJobsCount());
+        assertEquals(1, proxy.getJobQueueSize());
+
+        assertTrue(proxy.removeVm(0));
+
+        // requeued by rescheduleCloudlets ahead of the job that has not arrived yet
+        assertEquals(3, proxy.getJobQueueSize());
+        final List<Cloudlet> due = proxy.getJobsToSubmitAtThisTimestep(proxy.clock() + 1);
+        assertEquals(List.of(3L, 7L), ids(due));
+        due.forEach(job -> assertEquals(0, job.getSubmissionDelay()));
+        assertEquals(List.of(3L, 7L, 5L), ids(proxy.getJobsToSubmitAtThisTimestep(4)));
+        assertEquals(3, proxy.getJobQueueSize());
+    }
+
+    // the fixture parameters with one small vm to run jobs on
+    @Test
+    void jobCountsMatchARecountWhileVmsComeAndGo() {
+        final List<Cloudlet> jobs = churnJobs();
+        final double[] arrivals = jobs.stream().mapToDouble(Cloudlet::getSubmissionDelay)
+                .toArray();
+        final CloudSimProxy proxy = proxy(jobs);
+
+        runWithVmChurn(proxy, step -> {
+            long arrived = 0;
+            long running = 0;
+            long finished = 0;
+            long notYetRunning = 0;
+            for (int i = 0; i < jobs.size(); i++) {
+                final Cloudlet.Status status = jobs.get(i).getStatus();
+                final boolean hasArrived = arrivals[i] <= proxy.clock();
+                arrived += hasArrived ? 1 : 0;
+                running += status == Cloudlet.Status.INEXEC ? 1 : 0;
+                finished += status == Cloudlet.Status.SUCCESS ? 1 : 0;
+                notYetRunning += hasArrived && status != Cloudlet.Status.INEXEC
+                        && status != Cloudlet.Status.SUCCESS ? 1 : 0;
+            }
+            assertEquals(arrived, proxy.getArrivedJobsCount(), "arrived at step " + step);
+            assertEquals(running, proxy.getRunningJobsCount(), "running at step " + step);
+            assertEquals(finished, proxy.getFinishedJobsCount(), "finished at step " + step);
+            assertEquals(notYetRunning, proxy.getNotYetRunningJobsCount(),
+                    "not yet running at step " + step);
+        });
+        assertTrue(proxy.getFinishedJobsCount() > 0);
+    }
+
+    @Test
+    void vmCapacityMatchesARecountWhileVmsComeAndGo() {
+        final CloudSimProxy proxy = proxy(churnJobs());
+
+        runWithVmChurn(proxy, step -> {
+            final List<Vm> vms = proxy.getBroker().getVmExecList();
+            assertEquals(vms.stream().mapToLong(Vm::getPesNumber).sum(),
+                    proxy.getAllocatedCores(), "allocated cores at step " + step);
+            assertEquals(vms.stream().mapToLong(Vm::getExpectedFreePesNumber).sum(),
+                    proxy.getUnutilizedVmCores(), "unutilized cores at step " + step);
+            assertEquals(vms.stream().mapToLong(Vm::getExpectedFreePesNumber).max().orElse(0),
+                    proxy.getMaxFreeVmCores(), "max free cores at step " + step);
+            assertEquals(vms.stream()
+                    .mapToLong(vm -> vm.getCloudletScheduler().getCloudletExecList().size())
+                    .sum(), proxy.getRunningCloudletsCount(), "running jobs at step " + step);
+        });
+    }
+
+    @Test
+    void clockAdvancesThroughGapsBetweenJobs() {
+        // nothing happens between the first job finishing at 2 and the second arriving at 12
+        final List<Cloudlet> jobs = List.of(
+                new CloudletDescriptor(0, 0, 20_000L, 1).toCloudlet(),
+                new CloudletDescriptor(1, 12, 20_000L, 1).toCloudlet());
+        final CloudSimProxy proxy = proxy(jobs);
+        final AtomicLong processed = new AtomicLong();
+        proxy.getSimulation().addOnEventProcessingListener(info -> processed.incrementAndGet());
+
+        int step = 0;
+        while (proxy.getFinishedJobsCount() < jobs.size()) {
+            final long before = processed.get();
+            proxy.runOneTimestep();
+            step++;
+
+            assertTrue(step <= 20, "jobs left after step " + step);
+            assertEquals(step, proxy.clock(), 1e-9);
+            assertEquals(processed.get() - before, proxy.getLastTimestepEvents());
+            // the sentinel of a timestep is consumed when the clock reaches it
+            assertTrue(proxy.getSimulation().getNumberOfFutureEvents(
+                    event -> event.getTag() == CloudSimTag.NONE) <= 1, "sentinels " + step);
+        }
+        // the second job arrives at 12 and is reported finished in step 15
+        assertEquals(15, step);
+        assertEquals(Cloudlet.Status.SUCCESS, jobs.get(1).getStatus());
+        // with every job finished and nothing left to process, the simulation is let finish
+        assertFalse(proxy.isRunning());
+    }
+
+    static Map<String, Object> params() {
+        final Map<String, Object> params = SimulationFixtures.params();
+        params.put("initial_s_vm_count", 1);
+        return params;
+    }
+
+    private static CloudSimProxy proxy(final List<Cloudlet> jobs) {
+        return new CloudSimProxy(new SimulationSettings(params()), jobs, new StepMetrics());
+    }
+
+    private static List<Cloudlet> churnJobs() {
+        final List<Cloudlet> jobs = new ArrayList<>();
+        for (int id = 0; id < 60; id++) {
+            // one to five seconds of work, so that jobs finish while others arrive
+            jobs.add(new CloudletDescriptor(id, id / 3, 10_000L * (1 + id % 5), 1 + id % 2)
+                    .toCloudlet());
+        }
+        return jobs;
+    }
+
+    /**
+     * Runs the proxy while the agent creates vms of both sizes and destroys vms with jobs on
+     * them, calling afterStep with the step number after every step.
+     */
+    private static void runWithVmChurn(final CloudSimProxy proxy, final IntConsumer afterStep) {
+        int destroyed = 0;
+        for (int step = 0; step < 60 && proxy.isRunning(); step++) {
+            if (step % 4 == 1) {
+                proxy.addNewVm(step % 8 == 1 ? "M" : "S", step % 2);
+            }
+            // destroyed vms put their running jobs back in the queue
+            if (step % 6 == 5 && proxy.getRunningJobsCount() > 0 && proxy.removeVm(0)) {
+                destroyed++;
+            }
+            proxy.runOneTimestep();
+            afterStep.accept(step);
+        }
+        assertTrue(destroyed > 0);
+    }
+
+    // a one-core job long enough to keep running for the whole test
+    private static Cloudlet job(final int id, final long arrival) {
+        return new CloudletDescriptor(id, arrival, 1_000_000_000L, 1).toCloudlet();
+    }
+
+    private static List<Long> ids(final List<Cloudlet> jobs) {
+        return jobs.stream().map(Cloudlet::getId).toList();
+    }
+}
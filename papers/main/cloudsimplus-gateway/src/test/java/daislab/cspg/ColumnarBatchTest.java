@@ -0,0 +1,169 @@
+package daislab.cspg;
+
+import daislab.cspg.grpc.BatchStepRequest;
+import daislab.cspg.grpc.ColumnarBatchStepResponse;
+import daislab.cspg.grpc.ResetRequest;
+import daislab.cspg.grpc.ResetResult;
+import daislab.cspg.grpc.StepInfo;
+import daislab.cspg.grpc.StepRequest;
+import daislab.cspg.grpc.StepResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static daislab.cspg.SimulationFixtures.Recorder;
+import static daislab.cspg.SimulationFixtures.action;
+import static daislab.cspg.SimulationFixtures.bit;
+import static daislab.cspg.SimulationFixtures.create;
+import static daislab.cspg.SimulationFixtures.doubles;
+import static daislab.cspg.SimulationFixtures.ints;
+import static daislab.cspg.SimulationFixtures.jobsJson;
+import static daislab.cspg.SimulationFixtures.params;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Decodes {@code batchStepColumnar} responses the way a vectorized client does (little-endian
+ * columns, bitsets and offset tables) and compares every item with the same action sent to a
+ * twin simulation over a plain step call.
+ */
+class ColumnarBatchTest {
+
+    private static final String MISSING = "no-such-simulation";
+
+    private final CloudSimGrpcService service = new CloudSimGrpcService();
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    void columnsMatchIndividualSteps() {
+        final String[] batched = {
+            create(service, params(), jobsJson(40)), create(service, params(), jobsJson(25))};
+        final String[] twins = {
+            create(service, params(), jobsJson(40)), create(service, params(), jobsJson(25))};
+        for (int sim = 0; sim < batched.length; sim++) {
+            reset(batched[sim]);
+            reset(twins[sim]);
+        }
+
+        int jobWaitTimes = 0;
+        for (int round = 0; round < 15; round++) {
+            // the first simulation appears twice; its items run in request order
+            final String[] itemSims = {batched[0], batched[1], MISSING, batched[0]};
+            final int[][] actions = {
+                action(2 * round), action(round + 3), action(round), action(2 * round + 1)};
+            final BatchStepRequest.Builder request = BatchStepRequest.newBuilder();
+            for (int i = 0; i < itemSims.length; i++) {
+                request.addItems(BatchStepRequest.StepItem.newBuilder().setSimId(itemSims[i])
+                        .addAllAction(Arrays.stream(actions[i]).boxed().toList()));
+            }
+            final List<StepResult> expected = new ArrayList<>();
+            expected.add(step(twins[0], actions[0]));
+            expected.add(step(twins[1], actions[1]));
+            expected.add(null);
+            expected.add(step(twins[0], actions[3]));
+
+            final Recorder<ColumnarBatchStepResponse> response = new Recorder<>();
+            service.batchStepColumnar(request.build(), response);
+            final ColumnarBatchStepResponse batch = response.single();
+
+            assertEquals(itemSims.length, batch.getCount());
+            final double[] rewards = doubles(batch.getRewards());
+            final int[] observations = ints(batch.getObservations());
+            final int[] offsets = ints(batch.getObservationOffsets());
+            final int[] jobCoresWaiting = ints(batch.getJobCoresWaiting());
+            final double[] jobWaitReward = doubles(batch.getJobWaitReward());
+            final double[] runningVmCoresReward = doubles(batch.getRunningVmCoresReward());
+            final double[] unutilizedVmCoresReward = doubles(batch.getUnutilizedVmCoresReward());
+            final double[] invalidReward = doubles(batch.getInvalidReward());
+            final double[] unutilizedVmCoreRatio = doubles(batch.getUnutilizedVmCoreRatio());
+            final int[] hostAffected = ints(batch.getHostAffected());
+            final int[] coresChanged = ints(batch.getCoresChanged());
+            final double[] jobWaitTime = doubles(batch.getJobWaitTime());
+            final int[] jobWaitTimeOffsets = ints(batch.getJobWaitTimeOffsets());
+            assertEquals(itemSims.length + 1, offsets.length);
+            assertEquals(observations.length, offsets[itemSims.length]);
+            assertEquals(jobWaitTime.length, jobWaitTimeOffsets[itemSims.length]);
+
+            for (int i = 0; i < itemSims.length; i++) {
+                final StepResult twin = expected.get(i);
+                final String item = "round " + round + " item " + i;
+                if (twin == null) {
+                    assertTrue(bit(batch.getFailed(), i), item);
+                    assertTrue(bit(batch.getTruncated(), i), item);
+                    assertFalse(bit(batch.getTerminated(), i), item);
+                    assertEquals(offsets[i], offsets[i + 1], item);
+                    assertEquals(jobWaitTimeOffsets[i], jobWaitTimeOffsets[i + 1], item);
+                    continue;
+                }
+                final StepInfo info = twin.getInfo();
+                assertFalse(bit(batch.getFailed(), i), item);
+                assertEquals(twin.getReward(), rewards[i], item);
+                assertEquals(twin.getTerminated(), bit(batch.getTerminated(), i), item);
+                assertEquals(twin.getTruncated(), bit(batch.getTruncated(), i), item);
+                assertEquals(twin.getObservation().getJobCoresWaitingObservation(),
+                        jobCoresWaiting[i], item);
+                assertArrayEquals(
+                        twin.getObservation().getInfrastructureObservationList().stream()
+                                .mapToInt(Integer::intValue).toArray(),
+                        Arrays.copyOfRange(observations, offsets[i], offsets[i + 1]), item);
+                assertEquals(info.getJobWaitReward(), jobWaitReward[i], item);
+                assertEquals(info.getRunningVmCoresReward(), runningVmCoresReward[i], item);
+                assertEquals(info.getUnutilizedVmCoresReward(), unutilizedVmCoresReward[i],
+                        item);
+                assertEquals(info.getInvalidReward(), invalidReward[i], item);
+                assertEquals(info.getIsValid(), bit(batch.getIsValid(), i), item);
+                assertEquals(info.getUnutilizedVmCoreRatio(), unutilizedVmCoreRatio[i], item);
+                assertEquals(info.getHostAffected(), hostAffected[i], item);
+                assertEquals(info.getCoresChanged(), coresChanged[i], item);
+                assertArrayEquals(
+                        info.getJobWaitTimeList().stream().mapToDouble(Double::doubleValue)
+                                .toArray(),
+                        Arrays.copyOfRange(jobWaitTime, jobWaitTimeOffsets[i],
+                                jobWaitTimeOffsets[i + 1]), item);
+                jobWaitTimes += info.getJobWaitTimeCount();
+            }
+        }
+        assertTrue(jobWaitTimes > 0);
+    }
+
+    @Test
+    void onlyTheRequestedInfoColumnsAreFilled() {
+        final String sim = create(service, params(), jobsJson(5));
+        reset(sim);
+
+        final Recorder<ColumnarBatchStepResponse> response = new Recorder<>();
+        service.batchStepColumnar(BatchStepRequest.newBuilder()
+                .addInfoFields("host_affected")
+                .addItems(BatchStepRequest.StepItem.newBuilder().setSimId(sim)
+                        .addAllAction(Arrays.stream(action(1)).boxed().toList()))
+                .build(), response);
+        final ColumnarBatchStepResponse batch = response.single();
+
+        assertEquals(Integer.BYTES, batch.getHostAffected().size());
+        assertTrue(batch.getJobWaitReward().isEmpty());
+        assertTrue(batch.getJobWaitTime().isEmpty());
+        assertEquals(Double.BYTES, batch.getRewards().size());
+    }
+
+    private ResetResult reset(final String simId) {
+        final Recorder<ResetResult> result = new Recorder<>();
+        service.reset(ResetRequest.newBuilder().setSimId(simId).setSeed(3).build(), result);
+        return result.single();
+    }
+
+    private StepResult step(final String simId, final int[] action) {
+        final Recorder<StepResult> result = new Recorder<>();
+        service.step(StepRequest.newBuilder().setSimId(simId)
+                .addAllAction(Arrays.stream(action).boxed().toList()).build(), result);
+        return result.single();
+    }
+}
@@ -0,0 +1,86 @@
+package daislab.cspg;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link DiagnosticTrace} only writes below the diagnostics.dir of the server.
+ */
+class DiagnosticTraceTest {
+
+    @TempDir
+    Path root;
+
+    private Path diagnostics;
+
+    @BeforeEach
+    void configure() throws IOException {
+        diagnostics = Files.createDirectory(root.resolve("diagnostics")).toRealPath();
+        System.setProperty("diagnostics.dir", diagnostics.toString());
+    }
+
+    @AfterEach
+    void clear() {
+        System.clearProperty("diagnostics.dir");
+    }
+
+    @Test
+    void refusedWithoutADiagnosticsDirectory() {
+        System.clearProperty("diagnostics.dir");
+
+        assertThrows(IllegalStateException.class,
+                () -> DiagnosticTrace.resolveDirectory("run"));
+    }
+
+    @Test
+    void nestedDirectoriesAreCreated() throws IOException {
+        final Path directory = DiagnosticTrace.resolveDirectory("run/1");
+
+        assertEquals(diagnostics.resolve("run/1"), directory);
+        assertTrue(Files.isDirectory(directory));
+        assertEquals(diagnostics.resolve("run/1"),
+                DiagnosticTrace.resolveDirectory(diagnostics.resolve("run/1").toString()));
+    }
+
+    @Test
+    void traceIsWrittenInTheResolvedDirectory() {
+        final DiagnosticTrace trace = DiagnosticTrace.open("run", "Sim0");
+        trace.flush();
+
+        assertTrue(Files.isRegularFile(diagnostics.resolve("run/Sim0.diag.csv")));
+    }
+
+    @Test
+    void pathsOutOfTheDirectoryAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> DiagnosticTrace.resolveDirectory("../escaped"));
+        assertThrows(IllegalArgumentException.class,
+                () -> DiagnosticTrace.resolveDirectory("run/../../escaped"));
+        assertThrows(IllegalArgumentException.class,
+                () -> DiagnosticTrace.resolveDirectory(root.resolve("escaped").toString()));
+        assertFalse(Files.exists(root.resolve("escaped")));
+    }
+
+    @Test
+    void symbolicLinksOutOfTheDirectoryAreRejected() throws IOException {
+        final Path outside = Files.createDirectory(root.resolve("outside"));
+        Files.createSymbolicLink(diagnostics.resolve("link"), outside);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> DiagnosticTrace.resolveDirectory("link"));
+        assertThrows(IllegalArgumentException.class,
+                () -> DiagnosticTrace.resolveDirectory("link/nested"));
+        assertFalse(Files.exists(outside.resolve("nested")));
+    }
+}
@@ -0,0 +1,111 @@
+package daislab.cspg;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the bucket layout of {@link LatencyHistogram} (exact below 16, then eight buckets per
+ * power of two up to {@link Long#MAX_VALUE}) and the percentiles read back from it.
+ */
+class LatencyHistogramTest {
+
+    private static final int LAST_BUCKET = LatencyHistogram.bucketOf(Long.MAX_VALUE);
+
+    @Test
+    void smallValuesHaveABucketEach() {
+        for (int value = 0; value < 16; value++) {
+            assertEquals(value, LatencyHistogram.bucketOf(value));
+            assertEquals(value, LatencyHistogram.upperBoundOf(value));
+        }
+        assertEquals(16, LatencyHistogram.bucketOf(16));
+        assertEquals(16, LatencyHistogram.bucketOf(17));
+        assertEquals(17, LatencyHistogram.bucketOf(18));
+    }
+
+    @Test
+    void bucketsTileTheWholeRange() {
+        long lower = 0;
+        for (int bucket = 0; bucket <= LAST_BUCKET; bucket++) {
+            final long upper = LatencyHistogram.upperBoundOf(bucket);
+            assertEquals(bucket, LatencyHistogram.bucketOf(lower), "lower end of " + bucket);
+            assertEquals(bucket, LatencyHistogram.bucketOf(upper), "upper end of " + bucket);
+            if (lower >= 16) {
+                // a bucket is at most an eighth of the values it holds wide
+                assertTrue(upper - lower + 1 <= lower / 8, "width of " + bucket);
+            }
+            lower = upper + 1;
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBoundOf(LAST_BUCKET));
+    }
+
+    @Test
+    void everyPowerOfTwoIsSplitInEight() {
+        for (int exponent = 4; exponent < Long.SIZE - 1; exponent++) {
+            final long power = 1L << exponent;
+            final int first = LatencyHistogram.bucketOf(power);
+            assertEquals(first - 1, LatencyHistogram.bucketOf(power - 1), "below 2^" + exponent);
+            assertEquals(first + 7, LatencyHistogram.bucketOf(2 * power - 1),
+                    "top of 2^" + exponent);
+            for (int sub = 0; sub < 8; sub++) {
+                final long subBucketStart = power + sub * (power / 8);
+                assertEquals(first + sub, LatencyHistogram.bucketOf(subBucketStart));
+                assertEquals(subBucketStart + power / 8 - 1,
+                        LatencyHistogram.upperBoundOf(first + sub));
+            }
+        }
+    }
+
+    @Test
+    void percentilesOfAnEmptyHistogramAreZero() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(0, histogram.getValueAtPercentile(100));
+        assertEquals(0, histogram.getMean());
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    void zeroAndNegativeValuesLandInTheFirstBucket() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(0);
+        histogram.record(-5);
+
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(0));
+        assertEquals(0, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    void percentilesReportTheUpperEndOfTheirBucket() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(50.5, histogram.getMean());
+        assertEquals(1, histogram.getValueAtPercentile(0));
+        assertEquals(10, histogram.getValueAtPercentile(10));
+        // the 50th value is in [48, 51]
+        assertEquals(51, histogram.getValueAtPercentile(50));
+        // the 99th value is in [96, 103], capped at the maximum
+        assertEquals(100, histogram.getValueAtPercentile(99));
+        assertEquals(100, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    void largestValueIsRecorded() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(Long.MAX_VALUE, histogram.getMax());
+        // 1000 is in [960, 1023]
+        assertEquals(1_023, histogram.getValueAtPercentile(50));
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+    }
+}
@@ -0,0 +1,202 @@
+package daislab.cspg;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round-trips observations through {@link ObservationDeltaEncoder} and rebuilds them the way a
+ * client does, from the previously rebuilt array and the received patch.
+ */
+class ObservationDeltaEncoderTest {
+
+    @Test
+    void sparseChangesRoundTripAsPatches() {
+        final ObservationDeltaEncoder encoder = new ObservationDeltaEncoder(1000);
+        final Random random = new Random(42);
+        int[] current = new int[64];
+        int[] rebuilt = null;
+        int patches = 0;
+        for (int step = 0; step < 500; step++) {
+            current = current.clone();
+            for (int change = random.nextInt(4); change > 0; change--) {
+                current[random.nextInt(current.length)] = random.nextInt(100);
+            }
+            final ObservationDeltaEncoder.Delta delta = encoder.encode(current.clone(), false);
+            assertEquals(step == 0, delta.isKeyframe());
+            if (!delta.isKeyframe()) {
+                patches++;
+                assertTrue(delta.getValues().length < current.length);
+            }
+            rebuilt = apply(rebuilt, delta);
+            assertArrayEquals(current, rebuilt, "step " + step);
+        }
+        assertEquals(499, patches);
+    }
+
+    @Test
+    void unchangedObservationIsAnEmptyPatch() {
+        final ObservationDeltaEncoder encoder = new ObservationDeltaEncoder(1000);
+        final int[] observation = {1, 2, 3, 4, 5, 6, 7, 8};
+        encoder.encode(observation.clone(), false);
+
+        final ObservationDeltaEncoder.Delta delta = encoder.encode(observation.clone(), false);
+
+        assertFalse(delta.isKeyframe());
+        assertEquals(0, delta.getRangeStarts().length);
+        assertEquals(0, delta.getValues().length);
+        assertArrayEquals(observation, apply(observation.clone(), delta));
+    }
+
+    @Test
+    void keyframeEveryIntervalObservations() {
+        final ObservationDeltaEncoder encoder = new ObservationDeltaEncoder(4);
+        final List<Integer> keyframes = new ArrayList<>();
+        int[] current = new int[32];
+        int[] rebuilt = null;
+        for (int step = 0; step < 13; step++) {
+            current = current.clone();
+            current[step % current.length] = step + 1;
+            final ObservationDeltaEncoder.Delta delta = encoder.encode(current.clone(), false);
+            if (delta.isKeyframe()) {
+                keyframes.add(step);
+            }
+            rebuilt = apply(rebuilt, delta);
+            assertArrayEquals(current, rebuilt);
+        }
+        assertEquals(List.of(0, 4, 8, 12), keyframes);
+    }
+
+    @Test
+    void resetAndForcedKeyframesRestartTheCadence() {
+        final ObservationDeltaEncoder encoder = new ObservationDeltaEncoder(4);
+        final int[] observation = new int[32];
+        assertTrue(encoder.encode(observation.clone(), false).isKeyframe());
+        assertFalse(encoder.encode(observation.clone(), false).isKeyframe());
+
+        encoder.reset();
+        // the client drops its base on reset, so the same array is sent whole again
+        final ObservationDeltaEncoder.Delta afterReset = encoder.encode(observation.clone(), false);
+        assertTrue(afterReset.isKeyframe());
+        assertArrayEquals(observation, apply(null, afterReset));
+        assertFalse(encoder.encode(observation.clone(), false).isKeyframe());
+
+        assertTrue(encoder.encode(observation.clone(), true).isKeyframe());
+        // three patches follow the forced keyframe before the next scheduled one
+        for (int i = 0; i < 3; i++) {
+            assertFalse(encoder.encode(observation.clone(), false).isKeyframe());
+        }
+        assertTrue(encoder.encode(observation.clone(), false).isKeyframe());
+    }
+
+    @Test
+    void growingObservationPatchesTheTail() {
+        final ObservationDeltaEncoder encoder = new ObservationDeltaEncoder(1000);
+        final int[] before = sequence(40);
+        final int[] rebuiltBefore = apply(null, encoder.encode(before.clone(), false));
+
+        // a host came up: four more values at the end, the rest unchanged
+        final int[] after = Arrays.copyOf(before, 44);
+        Arrays.fill(after, 40, 44, 7);
+        final ObservationDeltaEncoder.Delta delta = encoder.encode(after.clone(), false);
+
+        assertFalse(delta.isKeyframe());
+        assertEquals(44, delta.getLength());
+        assertArrayEquals(new int[] {40}, delta.getRangeStarts());
+        assertArrayEquals(new int[] {4}, delta.getRangeLengths());
+        assertArrayEquals(after, apply(rebuiltBefore, delta));
+    }
+
+    @Test
+    void changeAtTheEndOfTheSharedPrefixExtendsOverTheGrownTail() {
+        final ObservationDeltaEncoder encoder = new ObservationDeltaEncoder(1000);
+        final int[] before = sequence(40);
+        final int[] rebuiltBefore = apply(null, encoder.encode(before.clone(), false));
+
+        final int[] after = Arrays.copyOf(before, 43);
+        after[39] = -1;
+        after[40] = 5;
+        final ObservationDeltaEncoder.Delta delta = encoder.encode(after.clone(), false);
+
+        assertFalse(delta.isKeyframe());
+        assertArrayEquals(new int[] {39}, delta.getRangeStarts());
+        assertArrayEquals(new int[] {4}, delta.getRangeLengths());
+        assertArrayEquals(after, apply(rebuiltBefore, delta));
+    }
+
+    @Test
+    void shrinkingObservationTruncatesTheBase() {
+        final ObservationDeltaEncoder encoder = new ObservationDeltaEncoder(1000);
+        final int[] before = sequence(40);
+        int[] rebuilt = apply(null, encoder.encode(before.clone(), false));
+
+        // a host went away: the array only gets shorter
+        final int[] shorter = Arrays.copyOf(before, 30);
+        final ObservationDeltaEncoder.Delta truncation = encoder.encode(shorter.clone(), false);
+        assertFalse(truncation.isKeyframe());
+        assertEquals(30, truncation.getLength());
+        assertEquals(0, truncation.getValues().length);
+        rebuilt = apply(rebuilt, truncation);
+        assertArrayEquals(shorter, rebuilt);
+
+        // shorter again, with a change inside what is left
+        final int[] shortest = Arrays.copyOf(shorter, 20);
+        shortest[3] = -3;
+        final ObservationDeltaEncoder.Delta delta = encoder.encode(shortest.clone(), false);
+        assertFalse(delta.isKeyframe());
+        rebuilt = apply(rebuilt, delta);
+        assertArrayEquals(shortest, rebuilt);
+
+        // and growing back past the old length
+        final int[] regrown = Arrays.copyOf(shortest, 42);
+        Arrays.fill(regrown, 20, 42, 9);
+        rebuilt = apply(rebuilt, encoder.encode(regrown.clone(), false));
+        assertArrayEquals(regrown, rebuilt);
+    }
+
+    @Test
+    void denseChangeFallsBackToKeyframe() {
+        final ObservationDeltaEncoder encoder = new ObservationDeltaEncoder(1000);
+        encoder.encode(sequence(16), false);
+
+        final int[] changed = sequence(16);
+        for (int i = 0; i < changed.length; i += 2) {
+            changed[i] = -changed[i];
+        }
+        final ObservationDeltaEncoder.Delta delta = encoder.encode(changed.clone(), false);
+
+        assertTrue(delta.isKeyframe());
+        assertArrayEquals(changed, apply(sequence(16), delta));
+    }
+
+    // what a client does with a received patch
+    static int[] apply(final int[] previous, final ObservationDeltaEncoder.Delta delta) {
+        final int[] next = delta.isKeyframe()
+                ? new int[delta.getLength()]
+                : Arrays.copyOf(previous, delta.getLength());
+        int offset = 0;
+        for (int r = 0; r < delta.getRangeStarts().length; r++) {
+            System.arraycopy(delta.getValues(), offset, next, delta.getRangeStarts()[r],
+                    delta.getRangeLengths()[r]);
+            offset += delta.getRangeLengths()[r];
+        }
+        assertEquals(delta.getValues().length, offset);
+        return next;
+    }
+
+    private static int[] sequence(final int length) {
+        final int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = i + 1;
+        }
+        return values;
+    }
+}
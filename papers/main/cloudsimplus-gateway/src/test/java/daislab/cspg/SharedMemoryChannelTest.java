@@ -0,0 +1,259 @@
+package daislab.cspg;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives a {@link SharedMemoryChannel} from both ends: a simulation thread that polls actions
+ * and publishes results, and a client that maps the same file and follows the documented
+ * header and slot layout.
+ */
+class SharedMemoryChannelTest {
+
+    private static final int SLOTS = 4;
+    private static final int OBSERVATION_CAPACITY = 8;
+
+    private static final VarHandle LONG_VIEW =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT_VIEW =
+            MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    @TempDir
+    Path directory;
+
+    private SharedMemoryChannel channel;
+    private RingClient client;
+
+    @BeforeEach
+    void open() throws IOException {
+        channel = new SharedMemoryChannel(directory.resolve("test.ring"), SLOTS,
+                OBSERVATION_CAPACITY);
+        client = new RingClient(channel.getPath());
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        channel.close();
+    }
+
+    @Test
+    void headerDescribesTheRing() {
+        assertEquals(SharedMemoryChannel.MAGIC, client.buffer.getInt(0));
+        assertEquals(SharedMemoryChannel.VERSION, client.buffer.getInt(4));
+        assertEquals(SLOTS, client.buffer.getInt(8));
+        assertEquals(SharedMemoryChannel.ACTION_SLOT_BYTES, client.buffer.getInt(12));
+        assertEquals(0, client.buffer.getInt(16) % 64);
+        assertEquals(OBSERVATION_CAPACITY, client.buffer.getInt(20));
+        assertEquals(0, client.buffer.getInt(24));
+        assertFalse(channel.isAttached());
+    }
+
+    @Test
+    @Timeout(30)
+    void burstOfActionsIsAnsweredInOrder() throws Exception {
+        final int actions = 2_000;
+        final AtomicBoolean stop = new AtomicBoolean();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        // the simulation side: one result per action, derived from the action
+        final Thread simulation = new Thread(() -> {
+            final int[] action = new int[SharedMemoryChannel.ACTION_INTS];
+            try {
+                while (!stop.get()) {
+                    if (!channel.pollAction(action)) {
+                        Thread.yield();
+                        continue;
+                    }
+                    if (action[0] % 100 == 99) {
+                        channel.publishError();
+                    } else {
+                        channel.publish(result(action));
+                    }
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        // the client's writer; results are read on the test thread
+        final Thread producer = new Thread(() -> {
+            for (int i = 0; i < actions; i++) {
+                client.sendAction(new int[] {i, i % 3, i % 5, i % 7});
+            }
+        });
+        simulation.start();
+        producer.start();
+
+        for (int i = 0; i < actions; i++) {
+            final ClientResult result = client.awaitResult();
+            if (i % 100 == 99) {
+                assertEquals(SharedMemoryChannel.STATUS_ERROR, result.status);
+                assertEquals(0, result.observation.length);
+                continue;
+            }
+            assertEquals(SharedMemoryChannel.STATUS_OK, result.status, "action " + i);
+            assertEquals(i, result.reward);
+            assertEquals(i % 2 == 0, result.terminated);
+            assertEquals(i % 3, result.jobCoresWaiting);
+            assertArrayEquals(new int[] {i, i % 3, i % 5, i % 7}, result.observation);
+        }
+        producer.join();
+        stop.set(true);
+        simulation.join();
+        assertNull(failure.get());
+        assertFalse(client.resultPending());
+    }
+
+    @Test
+    void actionWaitsWhileTheResultRingIsFull() {
+        final int[] action = new int[SharedMemoryChannel.ACTION_INTS];
+        for (int i = 0; i < SLOTS; i++) {
+            client.sendAction(new int[] {i, 0, 0, 0});
+            assertTrue(channel.pollAction(action));
+            channel.publish(result(action));
+        }
+        client.sendAction(new int[] {SLOTS, 0, 0, 0});
+
+        // every result slot holds an unread result
+        assertFalse(channel.pollAction(action));
+        assertEquals(0, client.awaitResult().reward);
+        assertTrue(channel.pollAction(action));
+        assertEquals(SLOTS, action[0]);
+    }
+
+    @Test
+    void detachAndReattach() {
+        final int[] action = new int[SharedMemoryChannel.ACTION_INTS];
+        client.attach();
+        assertTrue(channel.isAttached());
+
+        // nothing pending: the simulation side lets go of the ring
+        assertTrue(channel.detach());
+        assertFalse(channel.isAttached());
+
+        // the client finds the flag cleared after publishing and attaches again
+        assertTrue(client.sendAction(new int[] {1, 0, 0, 0}));
+        assertTrue(channel.isAttached());
+        assertTrue(channel.pollAction(action));
+        channel.publish(result(action));
+        assertEquals(1, client.awaitResult().reward);
+
+        // an action published after the flag was read keeps the ring attached
+        assertFalse(client.sendAction(new int[] {2, 0, 0, 0}));
+        assertFalse(channel.detach());
+        assertTrue(channel.isAttached());
+        assertTrue(channel.pollAction(action));
+        assertEquals(2, action[0]);
+    }
+
+    @Test
+    void closeFlagsTheRingAndRemovesTheFile() throws IOException {
+        client.attach();
+        channel.close();
+
+        assertEquals(1, (int) INT_VIEW.getAcquire(client.buffer, 24));
+        assertFalse(Files.exists(channel.getPath()));
+    }
+
+    private static SimulationStepResult result(final int[] action) {
+        final double[] rewards = {action[0], 0.5, 0.25, 0.125, 0};
+        final SimulationStepInfo info = new SimulationStepInfo(rewards, null, 0, null,
+                action[1], action[2], EnumSet.noneOf(StepInfoField.class));
+        return new SimulationStepResult(new Observation(action.clone(), action[1]), action[0],
+                action[0] % 2 == 0, false, info, null, 0);
+    }
+
+    private record ClientResult(int status, double reward, boolean terminated,
+            int jobCoresWaiting, int[] observation) {
+    }
+
+    /**
+     * The client end of the ring, written only against the byte layout documented on
+     * {@link SharedMemoryChannel}.
+     */
+    private static final class RingClient {
+
+        private final MappedByteBuffer buffer;
+        private final int slots;
+        private final int resultSlotBytes;
+        private final int resultsOffset;
+        private long actionHead;
+        private long resultTail;
+
+        RingClient(final Path path) throws IOException {
+            try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                buffer = file.map(FileChannel.MapMode.READ_WRITE, 0, file.size());
+            }
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            slots = buffer.getInt(8);
+            resultSlotBytes = buffer.getInt(16);
+            resultsOffset = SharedMemoryChannel.HEADER_BYTES
+                    + ((slots * buffer.getInt(12) + 63) & ~63);
+        }
+
+        void attach() {
+            INT_VIEW.setVolatile(buffer, 28, 1);
+        }
+
+        /**
+         * @return {@code true} if the ring had been detached and was attached again
+         */
+        boolean sendAction(final int[] action) {
+            while (actionHead - (long) LONG_VIEW.getAcquire(buffer, 128) >= slots) {
+                Thread.yield();
+            }
+            final int offset = SharedMemoryChannel.HEADER_BYTES
+                    + (int) (actionHead % slots) * SharedMemoryChannel.ACTION_SLOT_BYTES;
+            for (int i = 0; i < action.length; i++) {
+                buffer.putInt(offset + i * Integer.BYTES, action[i]);
+            }
+            LONG_VIEW.setVolatile(buffer, 64, ++actionHead);
+            if ((int) INT_VIEW.getVolatile(buffer, 28) == 0) {
+                INT_VIEW.setVolatile(buffer, 28, 1);
+                return true;
+            }
+            return false;
+        }
+
+        boolean resultPending() {
+            return resultTail != (long) LONG_VIEW.getAcquire(buffer, 192);
+        }
+
+        ClientResult awaitResult() {
+            while (!resultPending()) {
+                Thread.yield();
+            }
+            final int offset = resultsOffset + (int) (resultTail % slots) * resultSlotBytes;
+            final int[] observation = new int[buffer.getInt(offset + 4)];
+            for (int i = 0; i < observation.length; i++) {
+                observation[i] = buffer.getInt(offset + 72 + i * Integer.BYTES);
+            }
+            final ClientResult result = new ClientResult(buffer.getInt(offset),
+                    buffer.getDouble(offset + 8), buffer.getInt(offset + 16) != 0,
+                    buffer.getInt(offset + 24), observation);
+            LONG_VIEW.setRelease(buffer, 256, ++resultTail);
+            return result;
+        }
+    }
+}
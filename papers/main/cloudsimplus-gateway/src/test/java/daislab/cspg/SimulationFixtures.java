@@ -0,0 +1,176 @@
+package daislab.cspg;
+
+import com.google.gson.Gson;
+import com.google.protobuf.ByteString;
+import daislab.cspg.grpc.CreateRequest;
+import daislab.cspg.grpc.CreateResponse;
+import daislab.cspg.grpc.ObservationDelta;
+import io.grpc.stub.StreamObserver;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Settings, traces and gRPC helpers shared by the tests that run real simulations.
+ */
+final class SimulationFixtures {
+
+    private static final Gson GSON = new Gson();
+
+    private SimulationFixtures() {
+    }
+
+    /**
+     * Two hosts of 16 cores and no vms to start with, no vm startup or shutdown delay.
+     */
+    static Map<String, Object> params() {
+        final Map<String, Object> params = new HashMap<>();
+        params.put("timestep_interval", 1.0);
+        params.put("initial_s_vm_count", 0);
+        params.put("initial_m_vm_count", 0);
+        params.put("initial_l_vm_count", 0);
+        params.put("split_large_jobs", true);
+        params.put("max_job_pes", 2);
+        params.put("small_vm_hourly_cost", 0.36);
+        params.put("max_hosts", 2);
+        params.put("host_count", 2);
+        params.put("host_pe_mips", 10000);
+        params.put("host_pes", 16);
+        params.put("host_ram", 65536);
+        params.put("host_storage", 100000);
+        params.put("host_bw", 50000);
+        params.put("small_vm_pes", 2);
+        params.put("small_vm_ram", 8192);
+        params.put("small_vm_storage", 4000);
+        params.put("small_vm_bw", 1000);
+        params.put("medium_vm_multiplier", 2);
+        params.put("large_vm_multiplier", 4);
+        params.put("vm_startup_delay", 0.0);
+        params.put("vm_shutdown_delay", 0.0);
+        params.put("paying_for_the_full_hour", false);
+        params.put("clear_created_lists", true);
+        params.put("reward_job_wait_coef", 0.3);
+        params.put("reward_running_vm_cores_coef", 0.3);
+        params.put("reward_unutilized_vm_cores_coef", 0.4);
+        params.put("reward_invalid_coef", 0.1);
+        params.put("max_episode_length", 100);
+        params.put("vm_allocation_policy", "rl");
+        params.put("algorithm", "PPO");
+        return params;
+    }
+
+    /**
+     * A trace of short jobs arriving one per second, with one to three cores each.
+     */
+    static String jobsJson(final int count) {
+        final List<Map<String, Object>> jobs = new ArrayList<>(count);
+        for (int id = 0; id < count; id++) {
+            jobs.add(Map.of("jobId", id, "submissionDelay", id, "mi", 20_000 * (1 + id % 4),
+                    "cores", 1 + id % 3));
+        }
+        return GSON.toJson(jobs);
+    }
+
+    /**
+     * A mix of vm creations, vm removals and idle steps, some of them invalid.
+     */
+    static int[] action(final int step) {
+        if (step % 7 == 1) {
+            return new int[] {1, step % 2, 0, step % 3 == 0 ? 1 : 0};
+        }
+        if (step % 11 == 5) {
+            return new int[] {2, 0, 1, 0};
+        }
+        return new int[] {0, 0, 0, 0};
+    }
+
+    static String create(final CloudSimGrpcService service, final Map<String, Object> params,
+            final String jobsJson) {
+        final Recorder<CreateResponse> created = new Recorder<>();
+        service.createSimulation(CreateRequest.newBuilder()
+                .setParamsJson(GSON.toJson(params))
+                .setJobsJson(jobsJson)
+                .build(), created);
+        return created.single().getSimId();
+    }
+
+    /**
+     * Unpacks a little-endian int column.
+     */
+    static int[] ints(final ByteString bytes) {
+        final int[] values = new int[bytes.size() / Integer.BYTES];
+        bytes.asReadOnlyByteBuffer().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(values);
+        return values;
+    }
+
+    /**
+     * Unpacks a little-endian double column.
+     */
+    static double[] doubles(final ByteString bytes) {
+        final double[] values = new double[bytes.size() / Double.BYTES];
+        bytes.asReadOnlyByteBuffer().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(values);
+        return values;
+    }
+
+    /**
+     * Bit {@code index % 8} of byte {@code index / 8}.
+     */
+    static boolean bit(final ByteString bitset, final int index) {
+        return (bitset.byteAt(index >>> 3) & (1 << (index & 7))) != 0;
+    }
+
+    /**
+     * Rebuilds an observation from the previously rebuilt one the way a client does.
+     */
+    static int[] apply(final int[] previous, final ObservationDelta delta) {
+        final int[] next = delta.getKeyframe()
+                ? new int[delta.getLength()]
+                : Arrays.copyOf(previous, delta.getLength());
+        int offset = 0;
+        for (int r = 0; r < delta.getRangeStartCount(); r++) {
+            for (int i = 0; i < delta.getRangeLength(r); i++) {
+                next[delta.getRangeStart(r) + i] = delta.getValues(offset++);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Collects what a unary or server-streaming call sends back.
+     */
+    static final class Recorder<T> implements StreamObserver<T> {
+        final List<T> values = new ArrayList<>();
+        Throwable error;
+        boolean completed;
+
+        @Override
+        public void onNext(final T value) {
+            values.add(value);
+        }
+
+        @Override
+        public void onError(final Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onCompleted() {
+            completed = true;
+        }
+
+        T single() {
+            assertNull(error);
+            assertTrue(completed);
+            assertEquals(1, values.size());
+            return values.get(0);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package daislab.cspg;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that {@link TraceRegistry} shares one parsed trace per content, never evicts a trace
+ * a simulation holds, and evicts idle traces least-recently-used first.
+ */
+class TraceRegistryTest {
+
+    private final AtomicInteger parses = new AtomicInteger();
+    private final SimulationFactory factory = new SimulationFactory();
+
+    @Test
+    void sameContentIsParsedOnceAndShared() {
+        final TraceRegistry registry = registry(8);
+
+        final TraceRegistry.Trace first = registry.register(jobs(3));
+        final TraceRegistry.Trace second = registry.register(jobs(3));
+
+        assertSame(first, second);
+        assertEquals(1, parses.get());
+        assertEquals(TraceRegistry.hash(jobs(3)), first.getHash());
+        assertEquals(3, first.getJobs().size());
+        assertSame(first, registry.acquire(first.getHash()));
+        assertSame(first, registry.acquire(first.getHash()));
+        assertNotSame(first, registry.register(jobs(4)));
+    }
+
+    @Test
+    void splitVariantsAreComputedOncePerJobSize() {
+        final TraceRegistry.Trace trace = registry(8).register(jobs(3));
+        final AtomicInteger splits = new AtomicInteger();
+
+        final List<CloudletDescriptor> split = trace.getSplitJobs(2, maxJobPes -> {
+            splits.incrementAndGet();
+            return new ArrayList<>(trace.getJobs());
+        });
+
+        assertSame(split, trace.getSplitJobs(2, maxJobPes -> {
+            throw new AssertionError("split again");
+        }));
+        trace.getSplitJobs(4, maxJobPes -> {
+            splits.incrementAndGet();
+            return trace.getJobs();
+        });
+        assertEquals(2, splits.get());
+    }
+
+    @Test
+    void traceInUseIsNeverEvicted() {
+        final TraceRegistry registry = registry(1);
+        final String inUse = registry.register(jobs(1)).getHash();
+        registry.acquire(inUse);
+        registry.acquire(inUse);
+
+        for (int jobs = 2; jobs <= 5; jobs++) {
+            registry.register(jobs(jobs));
+        }
+        registry.release(inUse);
+
+        // still held by the second simulation
+        assertEquals(inUse, registry.acquire(inUse).getHash());
+        assertEquals(5, parses.get());
+        // only the most recently registered idle trace is left
+        assertThrows(IllegalArgumentException.class,
+                () -> registry.acquire(TraceRegistry.hash(jobs(4))));
+        registry.acquire(TraceRegistry.hash(jobs(5)));
+    }
+
+    @Test
+    void idleTracesAreEvictedLeastRecentlyUsedFirst() {
+        final TraceRegistry registry = registry(2);
+        final String a = registry.register(jobs(1)).getHash();
+        final String b = registry.register(jobs(2)).getHash();
+        // registering a again counts as a use, so b becomes the least recently used
+        registry.register(jobs(1));
+
+        final String c = registry.register(jobs(3)).getHash();
+
+        assertThrows(IllegalArgumentException.class, () -> registry.acquire(b));
+        registry.acquire(a);
+        registry.acquire(c);
+        registry.release(a);
+        registry.release(c);
+
+        // an evicted trace is parsed again when it is registered again
+        assertEquals(3, parses.get());
+        registry.register(jobs(2));
+        assertEquals(4, parses.get());
+        // the capacity holds: one of the three idle traces had to go
+        int registered = 0;
+        for (String hash : List.of(a, b, c)) {
+            try {
+                registry.acquire(hash);
+                registered++;
+            } catch (IllegalArgumentException e) {
+                // evicted
+            }
+        }
+        assertEquals(2, registered);
+    }
+
+    @Test
+    void releaseOfAnUnknownTraceIsIgnored() {
+        final TraceRegistry registry = registry(1);
+        final String hash = registry.register(jobs(1)).getHash();
+
+        registry.release(hash);
+        registry.release("unknown");
+
+        assertEquals(hash, registry.acquire(hash).getHash());
+    }
+
+    private TraceRegistry registry(final int capacity) {
+        return new TraceRegistry(capacity, json -> {
+            parses.incrementAndGet();
+            return factory.parseJobs(json);
+        });
+    }
+
+    private static String jobs(final int count) {
+        final StringBuilder json = new StringBuilder("[");
+        for (int id = 0; id < count; id++) {
+            if (id > 0) {
+                json.append(',');
+            }
+            json.append("{\"jobId\":").append(id).append(",\"submissionDelay\":").append(id)
+                    .append(",\"mi\":1000,\"cores\":1}");
+        }
+        return json.append(']').toString();
+    }
+}
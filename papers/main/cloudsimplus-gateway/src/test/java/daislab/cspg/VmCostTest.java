@@ -0,0 +1,143 @@
+package daislab.cspg;
+
+import org.cloudsimplus.hosts.Host;
+import org.cloudsimplus.vms.Vm;
+import org.cloudsimplus.vms.VmSimple;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the per-iteration cost kept by the {@link VmCost} ledger as vms are placed on a host,
+ * destroyed by the agent and stopped, with and without paying for the full hour.
+ */
+class VmCostTest {
+
+    // with a 1 second timestep a small vm costs 0.0001 per iteration
+    private static final double SMALL_VM_COST = 0.36 / 3600;
+    private static final double DELTA = 1e-12;
+
+    @Test
+    void vmIsPaidForFromTheMomentItIsPlaced() {
+        final VmCost vmCost = new VmCost(settings(false));
+        final Vm small = vm(0);
+        final Vm medium = vm(1);
+        vmCost.addNewVm(small, SimulationSettings.SMALL);
+        vmCost.addNewVm(medium, SimulationSettings.MEDIUM);
+
+        assertEquals(0, vmCost.getVMCostPerIteration(1), DELTA);
+
+        start(small);
+        assertEquals(SMALL_VM_COST, vmCost.getVMCostPerIteration(2), DELTA);
+
+        start(medium);
+        assertEquals(3 * SMALL_VM_COST, vmCost.getVMCostPerIteration(3), DELTA);
+        assertEquals(2, vmCost.getTrackedVmCount());
+    }
+
+    @Test
+    void vmRemovedByTheAgentIsNotPaidForAnyMore() {
+        final VmCost vmCost = new VmCost(settings(true));
+        final Vm small = vm(0);
+        final Vm large = vm(1);
+        vmCost.addNewVm(small, SimulationSettings.SMALL);
+        vmCost.addNewVm(large, SimulationSettings.LARGE);
+        start(small);
+        start(large);
+        assertEquals(5 * SMALL_VM_COST, vmCost.getVMCostPerIteration(1), DELTA);
+
+        // the agent destroys the large vm: removed before the host deallocates it
+        vmCost.removeVm(large);
+        stop(large, 2);
+
+        assertEquals(SMALL_VM_COST, vmCost.getVMCostPerIteration(2), DELTA);
+        assertEquals(1, vmCost.getTrackedVmCount());
+    }
+
+    @Test
+    void vmRemovedBeforeItStartsIsNeverPaidFor() {
+        final VmCost vmCost = new VmCost(settings(true));
+        final Vm small = vm(0);
+        vmCost.addNewVm(small, SimulationSettings.SMALL);
+
+        vmCost.removeVm(small);
+        start(small);
+
+        assertEquals(0, vmCost.getVMCostPerIteration(1), DELTA);
+        assertEquals(0, vmCost.getTrackedVmCount());
+    }
+
+    @Test
+    void stoppedVmIsPaidForUntilItsLastHourExpires() {
+        final VmCost vmCost = new VmCost(settings(true));
+        final Vm first = vm(0);
+        final Vm second = vm(1);
+        vmCost.addNewVm(first, SimulationSettings.MEDIUM);
+        vmCost.addNewVm(second, SimulationSettings.SMALL);
+        start(first);
+        start(second);
+
+        stop(first, 10);
+        stop(second, 20);
+
+        assertEquals(3 * SMALL_VM_COST, vmCost.getVMCostPerIteration(20), DELTA);
+        assertEquals(3 * SMALL_VM_COST, vmCost.getVMCostPerIteration(3610), DELTA);
+        // the hour of the first vm has passed, the second one is still paid for
+        assertEquals(SMALL_VM_COST, vmCost.getVMCostPerIteration(3611), DELTA);
+        assertEquals(1, vmCost.getTrackedVmCount());
+        assertEquals(SMALL_VM_COST, vmCost.getVMCostPerIteration(3620), DELTA);
+        assertEquals(0, vmCost.getVMCostPerIteration(3621), DELTA);
+        assertEquals(0, vmCost.getTrackedVmCount());
+    }
+
+    @Test
+    void stoppedVmIsNotPaidForWithoutTheFullHour() {
+        final VmCost vmCost = new VmCost(settings(false));
+        final Vm small = vm(0);
+        vmCost.addNewVm(small, SimulationSettings.SMALL);
+        start(small);
+
+        stop(small, 10);
+
+        assertEquals(0, vmCost.getVMCostPerIteration(10), DELTA);
+        assertEquals(0, vmCost.getTrackedVmCount());
+    }
+
+    @Test
+    void clearForgetsAllVms() {
+        final VmCost vmCost = new VmCost(settings(true));
+        final Vm running = vm(0);
+        final Vm stopped = vm(1);
+        vmCost.addNewVm(running, SimulationSettings.SMALL);
+        vmCost.addNewVm(stopped, SimulationSettings.LARGE);
+        start(running);
+        start(stopped);
+        stop(stopped, 5);
+
+        vmCost.clear();
+
+        assertEquals(0, vmCost.getVMCostPerIteration(6), DELTA);
+        assertEquals(0, vmCost.getTrackedVmCount());
+    }
+
+    private static Vm vm(final long id) {
+        return new VmSimple(id, 1000, 2);
+    }
+
+    private static void start(final Vm vm) {
+        vm.notifyOnHostAllocationListeners();
+    }
+
+    private static void stop(final Vm vm, final double time) {
+        vm.setFinishTime(time);
+        vm.notifyOnHostDeallocationListeners(Host.NULL);
+    }
+
+    private static SimulationSettings settings(final boolean payForFullHour) {
+        final Map<String, Object> params = SimulationFixtures.params();
+        params.put("paying_for_the_full_hour", payForFullHour);
+        return new SimulationSettings(params);
+    }
+}